@@ -0,0 +1,60 @@
+package com.example.booksAPI.benchmarks;
+
+import com.example.booksAPI.dto.BookColumnRowDTO;
+import com.example.booksAPI.dto.BookFacetsDTO;
+import com.example.booksAPI.enums.Publisher;
+import com.example.booksAPI.repositories.BooksRepository;
+import com.example.booksAPI.search.BookFacetIndex;
+import com.example.booksAPI.search.ColumnFilter;
+import com.example.booksAPI.search.ColumnarCatalog;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Facet counts over a columnar catalog of a million books, for the whole catalog and for a filtered request.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args=BookFacetIndexBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class BookFacetIndexBenchmark {
+
+    private static final int BOOKS = 1_000_000;
+
+    private BookFacetIndex index;
+    private ColumnFilter noFilter;
+    private ColumnFilter filter;
+
+    @Setup
+    public void setUp() {
+        Publisher[] publishers = Publisher.values();
+        BooksRepository booksRepository = Mockito.mock(BooksRepository.class);
+        Mockito.when(booksRepository.streamColumnRows()).thenAnswer(invocation -> IntStream.rangeClosed(1, BOOKS)
+                .mapToObj(id -> new BookColumnRowDTO(id, publishers[id % publishers.length], 1800 + id % 225,
+                        "Author " + id % 5000, 1 + (id % 400) / 100.0, id % 7, id % 5, id % 3, id % 2, id % 11)));
+        ColumnarCatalog catalog = new ColumnarCatalog(booksRepository,
+                Mockito.mock(PlatformTransactionManager.class), BOOKS, Integer.MAX_VALUE);
+        catalog.rebuild();
+        this.index = new BookFacetIndex(catalog);
+        this.noFilter = ColumnFilter.of(null, null, null, null, null, null);
+        this.filter = ColumnFilter.of(null, 1900, 1999, List.of(publishers[0], publishers[1]), 5, 3.0);
+    }
+
+    @Benchmark
+    public BookFacetsDTO wholeCatalog() {
+        return this.index.count(null, this.noFilter).orElseThrow();
+    }
+
+    @Benchmark
+    public BookFacetsDTO filtered() {
+        return this.index.count(null, this.filter).orElseThrow();
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.booksAPI.benchmarks;
+
+import com.example.booksAPI.dto.BookDTO;
+import com.example.booksAPI.dto.RatingDTO;
+import com.example.booksAPI.entities.Book;
+import com.example.booksAPI.entities.Rating;
+import com.example.booksAPI.enums.Publisher;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of a page of books with their ratings, both as the BookDTO read model the
+ * API returns and as the Book entity graph it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookSerializationBenchmark {
+
+    @Param({"50"})
+    public int books;
+
+    @Param({"0", "20"})
+    public int ratingsPerBook;
+
+    private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+    private List<BookDTO> dtos;
+    private List<Book> entities;
+
+    @Setup
+    public void setUp() {
+        this.dtos = new ArrayList<>();
+        this.entities = new ArrayList<>();
+        int ratingId = 1;
+        for (int id = 1; id <= this.books; id++) {
+            Book book = new Book(id, "Title " + id, 1950 + id % 70, "Author " + id, Publisher.POLLUB, new ArrayList<>());
+            List<RatingDTO> ratings = new ArrayList<>();
+            for (int i = 0; i < this.ratingsPerBook; i++) {
+                int score = 1 + i % 5;
+                Rating rating = new Rating();
+                rating.setId(ratingId);
+                rating.setScore(score);
+                rating.setBook(book);
+                book.getRatings().add(rating);
+                ratings.add(new RatingDTO(id, ratingId++, score));
+            }
+            this.entities.add(book);
+            this.dtos.add(new BookDTO(id, book.getTitle(), book.getPublication_year(), book.getAuthor(),
+                    book.getPublisher(), book.getRating_count(), book.getAverage_rating(),
+                    book.getRating_histogram(), ratings, book.getVersion()));
+        }
+    }
+
+    @Benchmark
+    public byte[] bookDTOs() throws Exception {
+        return this.mapper.writeValueAsBytes(this.dtos);
+    }
+
+    @Benchmark
+    public byte[] bookEntities() throws Exception {
+        return this.mapper.writeValueAsBytes(this.entities);
+    }
+}
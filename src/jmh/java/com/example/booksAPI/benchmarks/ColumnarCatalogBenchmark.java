@@ -0,0 +1,70 @@
+package com.example.booksAPI.benchmarks;
+
+import com.example.booksAPI.dto.BookColumnRowDTO;
+import com.example.booksAPI.enums.Publisher;
+import com.example.booksAPI.repositories.BooksRepository;
+import com.example.booksAPI.search.ColumnFilter;
+import com.example.booksAPI.search.ColumnarCatalog;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Id lists for /books/filter over a columnar catalog of a million books, scanned on the calling thread or
+ * split into chunks on the fork-join pool. selective matches a few hundred books, byAuthor a few thousand
+ * through the author dictionary and broad about a quarter of the catalog.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args=ColumnarCatalogBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class ColumnarCatalogBenchmark {
+
+    private static final int BOOKS = 1_000_000;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private ColumnarCatalog catalog;
+    private ColumnFilter selective;
+    private ColumnFilter byAuthor;
+    private ColumnFilter broad;
+
+    @Setup
+    public void setUp() {
+        Publisher[] publishers = Publisher.values();
+        BooksRepository booksRepository = Mockito.mock(BooksRepository.class);
+        Mockito.when(booksRepository.streamColumnRows()).thenAnswer(invocation -> IntStream.rangeClosed(1, BOOKS)
+                .mapToObj(id -> new BookColumnRowDTO(id, publishers[id % publishers.length], 1800 + id % 225,
+                        "Author " + id % 5000, 1 + (id % 400) / 100.0, id % 7, id % 5, id % 3, id % 2, id % 11)));
+        this.catalog = new ColumnarCatalog(booksRepository, Mockito.mock(PlatformTransactionManager.class), BOOKS,
+                this.parallel ? 0 : Integer.MAX_VALUE);
+        this.catalog.rebuild();
+        this.selective = ColumnFilter.of(1937, null, null, List.of(publishers[0]), null, 4.0);
+        this.byAuthor = ColumnFilter.of("author 123", null, null, null, null, null, null);
+        this.broad = ColumnFilter.of(null, 1900, 1999, List.of(publishers[0], publishers[1]), 5, 3.0);
+    }
+
+    @Benchmark
+    public Optional<int[]> selective() {
+        return this.catalog.findIds(this.selective, null);
+    }
+
+    @Benchmark
+    public Optional<int[]> byAuthor() {
+        return this.catalog.findIds(this.byAuthor, null);
+    }
+
+    @Benchmark
+    public Optional<int[]> broad() {
+        return this.catalog.findIds(this.broad, null);
+    }
+}
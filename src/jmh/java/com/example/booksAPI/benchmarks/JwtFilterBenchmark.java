@@ -0,0 +1,72 @@
+package com.example.booksAPI.benchmarks;
+
+import com.example.booksAPI.auth.TokenDenyList;
+import com.example.booksAPI.entities.User;
+import com.example.booksAPI.filters.JwtFilter;
+import com.example.booksAPI.repositories.RevokedTokensRepository;
+import com.example.booksAPI.repositories.UsersRepository;
+import com.example.booksAPI.services.JwtService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full JwtFilter pass for an authenticated request, with the user looked up by a stub that
+ * stands in for the users table, so only the filter's own work is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    @Param({"true", "false"})
+    public boolean stateless;
+
+    private JwtFilter filter;
+    private MockHttpServletRequest request;
+    private Authentication authentication;
+    private final FilterChain chain = (request, response) -> {
+        authentication = SecurityContextHolder.getContext().getAuthentication();
+    };
+
+    @Setup
+    public void setUp() {
+        User user = new User();
+        user.setId(1);
+        user.setEmail("bench@example.com");
+        user.setPassword("password");
+
+        RevokedTokensRepository revokedTokens = Mockito.mock(RevokedTokensRepository.class);
+        UsersRepository users = Mockito.mock(UsersRepository.class);
+        Mockito.when(revokedTokens.findActiveTokenIds(Mockito.any())).thenReturn(List.of());
+        Mockito.when(users.findTokenCutoffs()).thenReturn(List.of());
+        TokenDenyList denyList = new TokenDenyList(revokedTokens, users);
+        denyList.refresh();
+
+        JwtService jwtService = new JwtService(10_000);
+        this.filter = new JwtFilter(jwtService, username -> user, denyList, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(this.filter, "statelessAuth", this.stateless);
+
+        this.request = new MockHttpServletRequest("GET", "/books/1");
+        this.request.addHeader("Authorization", "Bearer " + jwtService.generateToken(user));
+    }
+
+    @Benchmark
+    public Authentication authenticate() throws Exception {
+        SecurityContextHolder.clearContext();
+        this.filter.doFilter(this.request, new MockHttpServletResponse(), this.chain);
+        return this.authentication;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.booksAPI.benchmarks;
+
+import com.example.booksAPI.dto.VerifiedToken;
+import com.example.booksAPI.services.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of issuing a token and of authenticating a bearer token per request.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args=JwtVerificationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET_KEY = "HwFMzEDYuSVjJ4Qr4zuw28H0hCOpRREn8StSfkVQSyd5H5JrCqneZi7xuW3Hl9Kb";
+
+    private JwtService uncachedService;
+    private JwtService cachedService;
+    private UserDetails user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        this.uncachedService = new JwtService(0);
+        this.cachedService = new JwtService(10_000);
+        this.user = new User("bench@example.com", "password", List.of());
+        this.token = this.cachedService.generateToken(this.user);
+    }
+
+    @Benchmark
+    public String generate() {
+        return this.uncachedService.generateToken(this.user);
+    }
+
+    // The filter path before single-parse verification: three full parses, each decoding the key
+    // and building a new parser
+    @Benchmark
+    public boolean legacyTripleParse() {
+        String username = legacyClaims(this.token).getSubject();
+        return username.equals(this.user.getUsername())
+                && legacyClaims(this.token).getSubject().equals(this.user.getUsername())
+                && !legacyClaims(this.token).getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public boolean singleParse() {
+        VerifiedToken verified = this.uncachedService.verify(this.token);
+        return this.uncachedService.isTokenValid(verified, this.user);
+    }
+
+    @Benchmark
+    public boolean cachedVerification() {
+        VerifiedToken verified = this.cachedService.verify(this.token);
+        return this.cachedService.isTokenValid(verified, this.user);
+    }
+
+    private static Claims legacyClaims(String token) {
+        Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY));
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+    }
+}
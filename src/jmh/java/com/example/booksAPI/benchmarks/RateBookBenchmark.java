@@ -0,0 +1,80 @@
+package com.example.booksAPI.benchmarks;
+
+import com.example.booksAPI.BooksApiApplication;
+import com.example.booksAPI.dto.BookRatingDTO;
+import com.example.booksAPI.dto.RateBookDTO;
+import com.example.booksAPI.entities.Book;
+import com.example.booksAPI.enums.Publisher;
+import com.example.booksAPI.repositories.BooksRepository;
+import com.example.booksAPI.services.BooksService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BooksService.rateBook end to end against an in-memory H2 database. Ratings accumulate over the
+ * run, which is what makes per-book rating history matter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateBookBenchmark {
+
+    private static final int BOOKS = 1000;
+
+    @Param({"1", "10"})
+    public int ratingsPerRequest;
+
+    private ConfigurableApplicationContext context;
+    private BooksService booksService;
+
+    @Setup
+    public void setUp() {
+        this.context = new SpringApplicationBuilder(BooksApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=sa",
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.sql.init.mode=never",
+                        "--logging.level.root=WARN");
+        BooksRepository booksRepository = this.context.getBean(BooksRepository.class);
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) {
+            Book book = new Book();
+            book.setTitle("Title " + i);
+            book.setPublication_year(1950 + i % 70);
+            book.setAuthor("Author " + i);
+            book.setPublisher(Publisher.POLLUB);
+            books.add(book);
+        }
+        booksRepository.saveAll(books);
+        this.booksService = this.context.getBean(BooksService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public Object rateBook() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<BookRatingDTO> ratings = new ArrayList<>(this.ratingsPerRequest);
+        for (int i = 0; i < this.ratingsPerRequest; i++) {
+            ratings.add(new BookRatingDTO(1 + random.nextInt(BOOKS), 1 + random.nextInt(5)));
+        }
+        return this.booksService.rateBook(new RateBookDTO(ratings));
+    }
+}
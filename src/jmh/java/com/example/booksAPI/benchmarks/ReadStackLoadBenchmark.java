@@ -0,0 +1,122 @@
+package com.example.booksAPI.benchmarks;
+
+import com.example.booksAPI.BooksApiApplication;
+import com.example.booksAPI.dto.LoginUserDTO;
+import com.example.booksAPI.dto.RegisterUserDTO;
+import com.example.booksAPI.entities.Book;
+import com.example.booksAPI.enums.Publisher;
+import com.example.booksAPI.repositories.BooksRepository;
+import com.example.booksAPI.services.AuthService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The same /books/filter request under high concurrency, answered by the servlet stack (JSON over JPA)
+ * or by the reactive profile (NDJSON over R2DBC), over real HTTP. Latency percentiles come from the
+ * sample mode, the Tomcat worker threads left after each iteration are printed. Against the default
+ * in-memory H2 both stacks keep a worker busy for the whole query, because r2dbc-h2 executes on the
+ * subscribing thread; the difference in threads shows against MySQL, selected with -Dbenchmark.jdbc-url
+ * and -Dbenchmark.r2dbc-url pointing at a scratch schema (the books table is recreated).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(256)
+@Fork(1)
+public class ReadStackLoadBenchmark {
+
+    private static final int BOOKS = 20_000;
+
+    @Param({"servlet", "reactive"})
+    public String stack;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup
+    public void setUp() {
+        this.context = new SpringApplicationBuilder(BooksApiApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .profiles(this.stack.equals("reactive") ? new String[]{"reactive"} : new String[0])
+                .run("--server.port=0",
+                        "--spring.datasource.url=" + System.getProperty("benchmark.jdbc-url",
+                                "jdbc:h2:mem:load;DB_CLOSE_DELAY=-1"),
+                        "--spring.datasource.driver-class-name=" + System.getProperty("benchmark.jdbc-driver",
+                                "org.h2.Driver"),
+                        "--spring.datasource.username=" + System.getProperty("benchmark.username", "sa"),
+                        "--spring.datasource.password=" + System.getProperty("benchmark.password", "sa"),
+                        "--spring.r2dbc.url=" + System.getProperty("benchmark.r2dbc-url",
+                                "r2dbc:h2:mem:///load;DB_CLOSE_DELAY=-1"),
+                        "--spring.r2dbc.username=" + System.getProperty("benchmark.username", "sa"),
+                        "--spring.r2dbc.password=" + System.getProperty("benchmark.password", "sa"),
+                        "--spring.r2dbc.pool.max-size=20",
+                        "--spring.datasource.hikari.maximum-pool-size=20",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.sql.init.mode=never",
+                        "--books.concurrency-limit.enabled=false",
+                        "--logging.level.root=WARN");
+
+        BooksRepository booksRepository = this.context.getBean(BooksRepository.class);
+        List<Book> books = new ArrayList<>();
+        Publisher[] publishers = Publisher.values();
+        for (int i = 0; i < BOOKS; i++) {
+            Book book = new Book();
+            book.setTitle("Title " + i);
+            book.setPublication_year(1900 + i % 120);
+            book.setAuthor("Author " + i);
+            book.setPublisher(publishers[i % publishers.length]);
+            books.add(book);
+        }
+        booksRepository.saveAll(books);
+
+        AuthService authService = this.context.getBean(AuthService.class);
+        authService.register(new RegisterUserDTO("load@example.com", "Passw0rd!")).join();
+        String token = authService.login(new LoginUserDTO("load@example.com", "Passw0rd!")).join()
+                .getBody().getToken();
+
+        int port = ((WebServerApplicationContext) this.context).getWebServer().getPort();
+        this.client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        this.request = HttpRequest.newBuilder(URI.create("http://localhost:" + port
+                        + "/books/filter?yearFrom=1950&yearTo=1951&publisher=" + publishers[0].name()))
+                .header("Authorization", "Bearer " + token)
+                .header("Accept", this.stack.equals("reactive") ? "application/x-ndjson" : "application/json")
+                .build();
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportThreads() {
+        long workers = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith("http-nio-"))
+                .count();
+        System.out.printf("%n%s stack: %d Tomcat threads, %d live threads%n", this.stack, workers,
+                Thread.activeCount());
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public String filterBooks() throws Exception {
+        HttpResponse<String> response = this.client.send(this.request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode());
+        }
+        return response.body();
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.booksAPI.benchmarks;
+
+import com.example.booksAPI.dto.PageRequestDTO;
+import com.example.booksAPI.validation.annotations.ValueOfEnum;
+import com.example.booksAPI.validation.validators.RatingValidator;
+import com.example.booksAPI.validation.validators.ValueOfEnumValidator;
+import com.example.booksAPI.validation.validators.YearValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidatorsBenchmark {
+
+    @Param({"1984", "abcd"})
+    public String year;
+
+    @Param({"3", "9"})
+    public String rating;
+
+    private final YearValidator yearValidator = new YearValidator();
+    private final RatingValidator ratingValidator = new RatingValidator();
+    private final ValueOfEnumValidator valueOfEnumValidator = new ValueOfEnumValidator();
+
+    @Setup
+    public void setUp() throws Exception {
+        ValueOfEnum annotation = PageRequestDTO.class.getDeclaredField("sort").getAnnotation(ValueOfEnum.class);
+        this.valueOfEnumValidator.initialize(annotation);
+    }
+
+    @Benchmark
+    public boolean year() {
+        return this.yearValidator.isValid(this.year, null);
+    }
+
+    @Benchmark
+    public boolean rating() {
+        return this.ratingValidator.isValid(this.rating, null);
+    }
+
+    @Benchmark
+    public boolean valueOfEnum() {
+        return this.valueOfEnumValidator.isValid("RATING", null);
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.booksAPI.benchmarks;
+
+import com.example.booksAPI.BooksApiApplication;
+import com.example.booksAPI.dto.LoginUserDTO;
+import com.example.booksAPI.dto.RegisterUserDTO;
+import com.example.booksAPI.entities.Book;
+import com.example.booksAPI.enums.Publisher;
+import com.example.booksAPI.metrics.VirtualThreadPinningMonitor;
+import com.example.booksAPI.repositories.BooksRepository;
+import com.example.booksAPI.services.AuthService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bursts of 5k and 10k concurrent connections against /books/filter, served by the 200 Tomcat workers or by
+ * the virtual-threads profile, over real HTTP. Every operation is one burst, the requests and failures
+ * counters give the throughput in requests per second, and after each iteration the pinned virtual threads
+ * reported by VirtualThreadPinningMonitor are printed. Client and server share the process, so 10k
+ * connections need about 20k file descriptors (ulimit -n). Like ReadStackLoadBenchmark, the database is
+ * an in-memory H2 unless -Dbenchmark.jdbc-url points at a scratch MySQL schema, where requests wait on
+ * the network and the worker threads are what caps the platform mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 20)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class VirtualThreadsLoadBenchmark {
+
+    private static final int BOOKS = 2_000;
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    @Param({"5000", "10000"})
+    public int connections;
+
+    private ConfigurableApplicationContext context;
+    private ExecutorService clientExecutor;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long requests;
+        public long failures;
+    }
+
+    @Setup
+    public void setUp() {
+        this.context = new SpringApplicationBuilder(BooksApiApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .profiles(this.virtualThreads ? new String[]{"virtual-threads"} : new String[0])
+                .run("--server.port=0",
+                        "--server.tomcat.max-connections=12000",
+                        "--server.tomcat.accept-count=1000",
+                        "--spring.datasource.url=" + System.getProperty("benchmark.jdbc-url",
+                                "jdbc:h2:mem:virtual;DB_CLOSE_DELAY=-1"),
+                        "--spring.datasource.driver-class-name=" + System.getProperty("benchmark.jdbc-driver",
+                                "org.h2.Driver"),
+                        "--spring.datasource.username=" + System.getProperty("benchmark.username", "sa"),
+                        "--spring.datasource.password=" + System.getProperty("benchmark.password", "sa"),
+                        "--spring.datasource.hikari.maximum-pool-size=20",
+                        "--spring.datasource.hikari.connection-timeout=60000",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.sql.init.mode=never",
+                        "--books.concurrency-limit.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.example.booksAPI.metrics=WARN");
+
+        BooksRepository booksRepository = this.context.getBean(BooksRepository.class);
+        List<Book> books = new ArrayList<>();
+        Publisher[] publishers = Publisher.values();
+        for (int i = 0; i < BOOKS; i++) {
+            Book book = new Book();
+            book.setTitle("Title " + i);
+            book.setPublication_year(1900 + i % 120);
+            book.setAuthor("Author " + i);
+            book.setPublisher(publishers[i % publishers.length]);
+            books.add(book);
+        }
+        booksRepository.saveAll(books);
+
+        AuthService authService = this.context.getBean(AuthService.class);
+        authService.register(new RegisterUserDTO("virtual@example.com", "Passw0rd!")).join();
+        String token = authService.login(new LoginUserDTO("virtual@example.com", "Passw0rd!")).join()
+                .getBody().getToken();
+
+        int port = ((WebServerApplicationContext) this.context).getWebServer().getPort();
+        this.clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(this.clientExecutor)
+                .build();
+        this.request = HttpRequest.newBuilder(URI.create("http://localhost:" + port
+                        + "/books/filter?yearFrom=1950&yearTo=1951&publisher=" + publishers[0].name()))
+                .header("Authorization", "Bearer " + token)
+                .header("Accept", "application/json")
+                .build();
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportPinning() {
+        String pinned = this.context.getBeanProvider(VirtualThreadPinningMonitor.class)
+                .stream()
+                .map(monitor -> String.format("%.0f pinned virtual threads", monitor.getPinnedCount()))
+                .findFirst()
+                .orElse("platform threads");
+        System.out.printf("%n%d connections: %s, %d live platform threads%n", this.connections, pinned,
+                Thread.activeCount());
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.context.close();
+        this.clientExecutor.close();
+    }
+
+    // Every request of a burst is in flight at once, each on its own connection
+    @Benchmark
+    public void burst(Counters counters) {
+        List<CompletableFuture<Boolean>> responses = new ArrayList<>(this.connections);
+        for (int i = 0; i < this.connections; i++) {
+            responses.add(this.client.sendAsync(this.request, HttpResponse.BodyHandlers.discarding())
+                    .thenApply(response -> response.statusCode() == 200)
+                    .exceptionally(ex -> false));
+        }
+        for (CompletableFuture<Boolean> response : responses) {
+            if (response.join()) {
+                counters.requests++;
+            } else {
+                counters.failures++;
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.booksAPI.auth;
+
+import com.example.booksAPI.dto.VerifiedToken;
+import lombok.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.List;
+
+// Principal built from the claims of a verified token, without loading the user from the database
+@Value
+public class AuthenticatedUser implements UserDetails {
+    Integer id;
+    String email;
+    List<SimpleGrantedAuthority> authorities;
+
+    public static AuthenticatedUser from(VerifiedToken token) {
+        return new AuthenticatedUser(token.getUserId(), token.getSubject(),
+                token.getAuthorities().stream().map(SimpleGrantedAuthority::new).toList());
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return this.email;
+    }
+}
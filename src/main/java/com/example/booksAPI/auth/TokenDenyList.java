@@ -0,0 +1,144 @@
+package com.example.booksAPI.auth;
+
+import com.example.booksAPI.dto.TokenCutoffDTO;
+import com.example.booksAPI.dto.VerifiedToken;
+import com.example.booksAPI.entities.RevokedToken;
+import com.example.booksAPI.repositories.RevokedTokensRepository;
+import com.example.booksAPI.repositories.UsersRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory view of revoked tokens and per-user token cutoffs, so requests can be authenticated
+ * without touching the database. Reads go through an immutable snapshot; revocations made on this
+ * node are applied immediately and the whole list is reloaded from the database in the background.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenDenyList {
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final RevokedTokensRepository revokedTokensRepository;
+    private final UsersRepository usersRepository;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private Set<String> storedTokenIds = Set.of();
+    private Map<Integer, Instant> storedCutoffs = Map.of();
+    private final Map<String, Instant> localTokenIds = new HashMap<>();
+    private final Map<Integer, Instant> localCutoffs = new HashMap<>();
+    private volatile Snapshot snapshot = Snapshot.of(Set.of(), Map.of());
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return this.ready;
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        Snapshot current = this.snapshot;
+        if (token.getUserId() != null) {
+            Instant validAfter = current.cutoffs.get(token.getUserId());
+            if (validAfter != null && token.getIssuedAt().isBefore(validAfter)) {
+                return true;
+            }
+        }
+        String tokenId = token.getTokenId();
+        return tokenId != null && current.filter.mightContain(tokenId) && current.tokenIds.contains(tokenId);
+    }
+
+    @Transactional
+    public void revoke(VerifiedToken token) {
+        this.revokedTokensRepository.save(
+                new RevokedToken(token.getTokenId(), token.getUserId(), token.getExpiration()));
+        this.lock.lock();
+        try {
+            this.localTokenIds.put(token.getTokenId(), token.getExpiration());
+            publish();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Transactional
+    public void revokeIssuedBefore(int userId, Instant validAfter) {
+        this.usersRepository.updateTokensValidAfter(userId, validAfter);
+        this.lock.lock();
+        try {
+            this.localCutoffs.merge(userId, validAfter, TokenDenyList::later);
+            publish();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${books.auth.deny-list-refresh-ms:30000}")
+    public void refresh() {
+        Instant now = Instant.now();
+        this.revokedTokensRepository.deleteExpired(now);
+        List<String> tokenIds = this.revokedTokensRepository.findActiveTokenIds(now);
+        Map<Integer, Instant> cutoffs = new HashMap<>();
+        for (TokenCutoffDTO cutoff : this.usersRepository.findTokenCutoffs()) {
+            cutoffs.put(cutoff.getUserId(), cutoff.getTokensValidAfter());
+        }
+        this.lock.lock();
+        try {
+            this.storedTokenIds = new HashSet<>(tokenIds);
+            this.storedCutoffs = cutoffs;
+            // Local entries are kept until the database reflects them, a refresh that started before
+            // their transaction committed would otherwise drop them
+            this.localTokenIds.entrySet().removeIf(entry ->
+                    !entry.getValue().isAfter(now) || this.storedTokenIds.contains(entry.getKey()));
+            this.localCutoffs.entrySet().removeIf(entry -> {
+                Instant stored = cutoffs.get(entry.getKey());
+                return stored != null && !stored.isBefore(entry.getValue());
+            });
+            publish();
+            this.ready = true;
+        } finally {
+            this.lock.unlock();
+        }
+        log.debug("Token deny list refreshed with {} revoked tokens and {} user cutoffs",
+                this.snapshot.tokenIds.size(), this.snapshot.cutoffs.size());
+    }
+
+    private void publish() {
+        Set<String> tokenIds = new HashSet<>(this.storedTokenIds);
+        tokenIds.addAll(this.localTokenIds.keySet());
+        Map<Integer, Instant> cutoffs = new HashMap<>(this.storedCutoffs);
+        this.localCutoffs.forEach((userId, validAfter) -> cutoffs.merge(userId, validAfter, TokenDenyList::later));
+        this.snapshot = Snapshot.of(tokenIds, cutoffs);
+    }
+
+    private static Instant later(Instant a, Instant b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static class Snapshot {
+        private final BloomFilter filter;
+        private final Set<String> tokenIds;
+        private final Map<Integer, Instant> cutoffs;
+
+        private Snapshot(BloomFilter filter, Set<String> tokenIds, Map<Integer, Instant> cutoffs) {
+            this.filter = filter;
+            this.tokenIds = tokenIds;
+            this.cutoffs = cutoffs;
+        }
+
+        static Snapshot of(Set<String> tokenIds, Map<Integer, Instant> cutoffs) {
+            BloomFilter filter = new BloomFilter(Math.max(1024, tokenIds.size() * 2), FALSE_POSITIVE_RATE);
+            tokenIds.forEach(filter::put);
+            return new Snapshot(filter, Set.copyOf(tokenIds), Map.copyOf(cutoffs));
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.booksAPI.cache;
+
+import com.example.booksAPI.config.CacheConfig;
+import com.example.booksAPI.dto.BookDTO;
+import com.example.booksAPI.events.BooksChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+@Component
+@RequiredArgsConstructor
+public class BookCacheInvalidator {
+    private final CacheManager cacheManager;
+
+    // Evicting after commit means a reader can't put the old row back between the eviction and the commit
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooksChanged(BooksChangedEvent event) {
+        Cache cache = this.cacheManager.getCache(CacheConfig.BOOKS_CACHE);
+        if (cache == null) {
+            return;
+        }
+        event.getSavedBooks().stream().map(BookDTO::getId).forEach(cache::evict);
+        event.getDeletedIds().forEach(cache::evict);
+    }
+}
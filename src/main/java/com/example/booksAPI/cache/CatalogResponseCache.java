@@ -0,0 +1,126 @@
+package com.example.booksAPI.cache;
+
+import com.example.booksAPI.dto.BooksPage;
+import com.example.booksAPI.dto.PageRequestDTO;
+import com.example.booksAPI.events.BooksChangedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized catalog pages, kept as identity and gzip encoded bytes so that a hit costs neither a query
+ * nor serialization nor compression. Entries are keyed by the catalog version, so an instance that missed
+ * a write never serves an older page under a newer ETag, and all of them are dropped once a write commits.
+ */
+@Component
+public class CatalogResponseCache {
+    private final ObjectMapper objectMapper;
+    private final AsyncCache<Key, CachedPage> pages;
+
+    public CatalogResponseCache(ObjectMapper objectMapper,
+                                @Value("${books.catalog-cache.max-bytes:33554432}") long maxBytes) {
+        this.objectMapper = objectMapper;
+        this.pages = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, CachedPage page) -> page.getJson().length + page.getGzip().length)
+                .buildAsync();
+    }
+
+    // The first caller for a key publishes a pending future and loads the page itself, later ones wait on
+    // that future, so a burst of requests right after a write triggers a single query and serialization.
+    // Loading inside Cache.get would run the query while holding a ConcurrentHashMap bin monitor, which
+    // pins the carrier of a virtual thread for the whole query. Waiters join the outcome of the load rather
+    // than the cached future, so a failure reaches them without a retry while the cached future completes
+    // with null, which Caffeine drops without logging.
+    public CachedPage get(long catalogVersion, PageRequestDTO page, boolean includeRatings,
+                          Supplier<BooksPage> loader) {
+        Key key = new Key(catalogVersion, page.getLimit(), page.getSort(), page.getOrder(), page.getAfter(),
+                includeRatings);
+        Loading loading = new Loading();
+        CompletableFuture<CachedPage> existing = this.pages.asMap().putIfAbsent(key, loading);
+        if (existing == null) {
+            return this.load(key, loading, loader);
+        }
+        try {
+            return ((Loading) existing).outcome.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException failure) {
+                throw failure;
+            }
+            throw e;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooksChanged(BooksChangedEvent event) {
+        this.invalidateAll();
+    }
+
+    public void invalidateAll() {
+        this.pages.synchronous().invalidateAll();
+    }
+
+    private CachedPage load(Key key, Loading loading, Supplier<BooksPage> loader) {
+        try {
+            CachedPage cached = this.serialize(loader.get());
+            loading.outcome.complete(cached);
+            loading.complete(cached);
+            return cached;
+        } catch (RuntimeException | Error e) {
+            this.pages.asMap().remove(key, loading);
+            loading.complete(null);
+            loading.outcome.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private CachedPage serialize(BooksPage page) {
+        try {
+            byte[] json = this.objectMapper.writeValueAsBytes(page.getBooks());
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(json);
+            }
+            return new CachedPage(json, compressed.toByteArray(), page.getNextCursor());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class CachedPage {
+        private final byte[] json;
+        private final byte[] gzip;
+        private final String nextCursor;
+    }
+
+    private static class Loading extends CompletableFuture<CachedPage> {
+        private final CompletableFuture<CachedPage> outcome = new CompletableFuture<>();
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class Key {
+        private final long catalogVersion;
+        private final Integer limit;
+        private final String sort;
+        private final String order;
+        private final String after;
+        private final boolean includeRatings;
+    }
+}
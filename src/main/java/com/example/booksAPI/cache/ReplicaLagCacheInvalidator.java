@@ -0,0 +1,42 @@
+package com.example.booksAPI.cache;
+
+import com.example.booksAPI.config.CacheConfig;
+import com.example.booksAPI.datasource.ReplicaDataSourceProperties;
+import com.example.booksAPI.dto.BookDTO;
+import com.example.booksAPI.events.BooksChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * With replicas a read right after the commit can still load the old row from a lagging replica and put it
+ * back into the books cache. Evicting the changed books once more after the read-after-write window, which
+ * is the lag replicas are expected to stay within, removes such entries.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "books.datasource.replicas[0].url")
+public class ReplicaLagCacheInvalidator {
+    private final CacheManager cacheManager;
+    private final ReplicaDataSourceProperties properties;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooksChanged(BooksChangedEvent event) {
+        Cache cache = this.cacheManager.getCache(CacheConfig.BOOKS_CACHE);
+        if (cache == null) {
+            return;
+        }
+        List<Integer> ids = Stream.concat(event.getSavedBooks().stream().map(BookDTO::getId),
+                event.getDeletedIds().stream()).toList();
+        CompletableFuture.delayedExecutor(this.properties.getReadAfterWriteWindow().toMillis(), TimeUnit.MILLISECONDS)
+                .execute(() -> ids.forEach(cache::evict));
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.booksAPI.concurrency;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "books.concurrency-limit")
+public class ConcurrencyLimitProperties {
+    private boolean enabled = true;
+
+    private Limit reads = new Limit(50, 10, 200);
+
+    // Writes hold primary connections and row locks, so they get a smaller limit of their own
+    private Limit writes = new Limit(20, 2, 100);
+
+    // How many times the baseline latency is accepted before the limit starts shrinking
+    private double rttTolerance = 1.5;
+
+    private double smoothing = 0.2;
+
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Limit {
+        private int initial;
+        private int min;
+        private int max;
+    }
+}
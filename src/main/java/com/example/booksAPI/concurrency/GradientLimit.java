@@ -0,0 +1,99 @@
+package com.example.booksAPI.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit that follows the latency of the requests it lets through. A long running average of
+ * the round trip time stands in for the latency without queueing, and every sample moves the limit by
+ * the ratio between it and the short average: when the database slows down the requests take longer,
+ * the gradient drops below one and the limit shrinks before threads pile up waiting for connections.
+ * While latency holds, the limit grows by its square root, which probes for spare capacity.
+ */
+public class GradientLimit {
+    private static final double LONG_WINDOW_FACTOR = 2.0 / (600 + 1);
+    private static final double SHORT_WINDOW_FACTOR = 2.0 / (10 + 1);
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final double smoothing;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock updateLock = new ReentrantLock();
+
+    private volatile double limit;
+    private double longRtt;
+    private double shortRtt;
+
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit, double rttTolerance, double smoothing) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max");
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.smoothing = smoothing;
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = this.inFlight.get();
+            if (current >= (int) this.limit) {
+                return false;
+            }
+            if (this.inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // For requests whose latency says nothing about the load, like failures or ones continuing asynchronously
+    public void release() {
+        this.inFlight.decrementAndGet();
+    }
+
+    public void release(long rttNanos) {
+        int active = this.inFlight.getAndDecrement();
+        // A sample that finds another one being applied is skipped rather than waited for: the averages
+        // hardly miss it, and no request thread ever blocks on the limiter
+        if (this.updateLock.tryLock()) {
+            try {
+                this.update(rttNanos, active);
+            } finally {
+                this.updateLock.unlock();
+            }
+        }
+    }
+
+    public int getLimit() {
+        return (int) this.limit;
+    }
+
+    public int getInFlight() {
+        return this.inFlight.get();
+    }
+
+    private void update(long rttNanos, int active) {
+        if (this.longRtt == 0) {
+            this.longRtt = rttNanos;
+            this.shortRtt = rttNanos;
+            return;
+        }
+        this.shortRtt += (rttNanos - this.shortRtt) * SHORT_WINDOW_FACTOR;
+        this.longRtt += (this.shortRtt - this.longRtt) * LONG_WINDOW_FACTOR;
+        // Let the baseline recover quickly once a slowdown is over instead of waiting out the long window
+        if (this.longRtt / this.shortRtt > 2) {
+            this.longRtt *= 0.95;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, this.rttTolerance * this.longRtt / this.shortRtt));
+        double newLimit = this.limit * gradient + Math.sqrt(this.limit);
+        // Growing while most of the limit is unused would let it drift far above what was ever tested
+        if (newLimit > this.limit && active < this.limit / 2) {
+            return;
+        }
+        newLimit = this.limit * (1 - this.smoothing) + newLimit * this.smoothing;
+        this.limit = Math.max(this.minLimit, Math.min(this.maxLimit, newLimit));
+    }
+}
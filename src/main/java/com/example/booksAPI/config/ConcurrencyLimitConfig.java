@@ -0,0 +1,36 @@
+package com.example.booksAPI.config;
+
+import com.example.booksAPI.concurrency.ConcurrencyLimitProperties;
+import com.example.booksAPI.concurrency.GradientLimit;
+import com.example.booksAPI.filters.ConcurrencyLimitFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+@ConditionalOnProperty(name = "books.concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(ConcurrencyLimitProperties.class)
+public class ConcurrencyLimitConfig {
+    // Runs right after the observation filter so rejected requests still show up in http.server.requests
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(ConcurrencyLimitProperties properties,
+                                                                                 ObjectMapper objectMapper,
+                                                                                 MeterRegistry meterRegistry) {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(
+                limit(properties.getReads(), properties), limit(properties.getWrites(), properties),
+                properties.getRetryAfter(), objectMapper, meterRegistry);
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+
+    private static GradientLimit limit(ConcurrencyLimitProperties.Limit limit, ConcurrencyLimitProperties properties) {
+        return new GradientLimit(limit.getInitial(), limit.getMin(), limit.getMax(),
+                properties.getRttTolerance(), properties.getSmoothing());
+    }
+}
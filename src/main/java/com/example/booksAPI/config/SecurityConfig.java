@@ -1,16 +1,24 @@
 package com.example.booksAPI.config;
 
 import com.example.booksAPI.filters.JwtFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+
+import java.util.List;
 
 @Configuration
 @EnableWebSecurity
@@ -19,15 +27,24 @@ public class SecurityConfig {
     private final JwtFilter jwtAuthFilter;
     private final AuthenticationProvider authenticationProvider;
 
+    // Matched against the TCP peer, forwarded headers aren't trusted
+    @Value("${books.metrics.scrape-networks:127.0.0.1/32,::1/128}")
+    private List<String> scrapeNetworks;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception{
         http
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/auth/**")
+                        // /books/export and the other async responses finish in an async dispatch, JwtFilter
+                        // doesn't run again there and the request was already authorized when it started
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        .requestMatchers("/auth/register", "/auth/login")
                         .permitAll()
                         .requestMatchers(HttpMethod.GET, "/books").permitAll()
+                        // Prometheus scrapes without a token, so only its networks get through
+                        .requestMatchers(HttpMethod.GET, "/actuator/prometheus").access(this.fromScrapeNetworks())
                         .anyRequest()
                         .authenticated())
                 .authenticationProvider(authenticationProvider)
@@ -35,4 +52,10 @@ public class SecurityConfig {
 
         return http.build();
     }
+
+    private AuthorizationManager<RequestAuthorizationContext> fromScrapeNetworks() {
+        List<IpAddressMatcher> networks = this.scrapeNetworks.stream().map(IpAddressMatcher::new).toList();
+        return (authentication, context) -> new AuthorizationDecision(
+                networks.stream().anyMatch(network -> network.matches(context.getRequest())));
+    }
 }
@@ -6,12 +6,15 @@ import com.example.booksAPI.services.AuthService;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/auth")
 @AllArgsConstructor
@@ -20,12 +23,22 @@ public class AuthController {
     private final AuthService authService;
 
     @PostMapping("/register")
-    public ResponseEntity<?> registerUser(@RequestBody @Valid RegisterUserDTO registerUserDTO) {
+    public CompletableFuture<? extends ResponseEntity<?>> registerUser(@RequestBody @Valid RegisterUserDTO registerUserDTO) {
         return this.authService.register(registerUserDTO);
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> loginUser(@RequestBody @Valid LoginUserDTO loginUserDTO) {
+    public CompletableFuture<? extends ResponseEntity<?>> loginUser(@RequestBody @Valid LoginUserDTO loginUserDTO) {
         return this.authService.login(loginUserDTO);
     }
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logoutUser(Authentication authentication) {
+        return this.authService.logout(authentication);
+    }
+
+    @PostMapping("/logout-all")
+    public ResponseEntity<?> logoutUserEverywhere(Authentication authentication) {
+        return this.authService.logoutEverywhere(authentication);
+    }
 }
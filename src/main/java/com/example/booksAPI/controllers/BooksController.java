@@ -1,48 +1,176 @@
 package com.example.booksAPI.controllers;
+import com.example.booksAPI.cache.CatalogResponseCache;
+import com.example.booksAPI.cache.CatalogResponseCache.CachedPage;
 import com.example.booksAPI.dto.AddBookDTO;
+import com.example.booksAPI.dto.BookDTO;
+import com.example.booksAPI.dto.BookFacetsDTO;
+import com.example.booksAPI.dto.BookFilterDTO;
+import com.example.booksAPI.dto.BooksPage;
+import com.example.booksAPI.dto.ImportResultDTO;
+import com.example.booksAPI.dto.PageRequestDTO;
 import com.example.booksAPI.dto.RateBookDTO;
+import com.example.booksAPI.dto.RatingIngestionResponse;
+import com.example.booksAPI.dto.TopBooksRequestDTO;
 import com.example.booksAPI.dto.UpdateBookDTO;
-import com.example.booksAPI.entities.Book;
+import com.example.booksAPI.enums.ImportFormat;
+import com.example.booksAPI.enums.Publisher;
 import com.example.booksAPI.exceptions.BadRequestException;
+import com.example.booksAPI.services.BooksExportService;
+import com.example.booksAPI.services.BooksImportService;
 import com.example.booksAPI.services.BooksService;
+import com.example.booksAPI.services.CatalogVersionService;
+import com.example.booksAPI.services.RatingIngestionService;
 import com.example.booksAPI.validation.annotations.IsRating;
 import com.example.booksAPI.validation.annotations.IsYear;
+import com.example.booksAPI.validation.annotations.ValueOfEnum;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Pattern;
 import lombok.AllArgsConstructor;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping(path = "/books")
 @AllArgsConstructor
 @Validated
 public class BooksController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final long NO_TIMEOUT = -1;
 
     private BooksService booksService;
+    private BooksExportService booksExportService;
+    private BooksImportService booksImportService;
+    private CatalogVersionService catalogVersionService;
+    private CatalogResponseCache catalogResponseCache;
+    private Optional<RatingIngestionService> ratingIngestionService;
 
 
     @GetMapping("/filter")
-    public List<Book> getFilteredBooks(@RequestParam(required = false) String title,
-                                       @IsYear @RequestParam(required = false) String year,
-                                       @RequestParam(required = false) String author,
-                                       @IsRating @RequestParam(required = false) String rating) {
-        return this.booksService.getFilteredBooks(title, year, author, rating);
+    public ResponseEntity<List<BookDTO>> getFilteredBooks(@RequestParam(required = false) String title,
+                                                          @IsYear @RequestParam(required = false) String year,
+                                                          @IsYear @RequestParam(required = false) String yearFrom,
+                                                          @IsYear @RequestParam(required = false) String yearTo,
+                                                          @RequestParam(required = false) String author,
+                                                          @RequestParam(name = "publisher", required = false)
+                                                          List<@ValueOfEnum(enumClass = Publisher.class,
+                                                                  message = "Invalid publisher") String> publishers,
+                                                          @IsRating @RequestParam(required = false) String rating,
+                                                          @Pattern(regexp = "^([1-4](\\.[0-9]+)?|5(\\.0+)?)$",
+                                                                  message = "Minimum rating must be in range 1-5")
+                                                          @RequestParam(required = false) String minRating,
+                                                          @RequestParam(defaultValue = "false") boolean includeRatings,
+                                                          @Valid PageRequestDTO page,
+                                                          @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                          String ifNoneMatch) {
+        String etag = catalogETag(this.catalogVersionService.current());
+        if (isNotModified(ifNoneMatch, etag)) {
+            return notModified(weak(etag));
+        }
+        BookFilterDTO filter = new BookFilterDTO(title, author, year, yearFrom, yearTo, publishers, rating, minRating);
+        return toResponse(this.booksService.getFilteredBooks(filter, page, includeRatings), etag);
+    }
+
+    @GetMapping("/facets")
+    public ResponseEntity<BookFacetsDTO> getBookFacets(@RequestParam(required = false) String title,
+                                                       @IsYear @RequestParam(required = false) String year,
+                                                       @IsYear @RequestParam(required = false) String yearFrom,
+                                                       @IsYear @RequestParam(required = false) String yearTo,
+                                                       @RequestParam(required = false) String author,
+                                                       @RequestParam(name = "publisher", required = false)
+                                                       List<@ValueOfEnum(enumClass = Publisher.class,
+                                                               message = "Invalid publisher") String> publishers,
+                                                       @IsRating @RequestParam(required = false) String rating,
+                                                       @Pattern(regexp = "^([1-4](\\.[0-9]+)?|5(\\.0+)?)$",
+                                                               message = "Minimum rating must be in range 1-5")
+                                                       @RequestParam(required = false) String minRating) {
+        BookFilterDTO filter = new BookFilterDTO(title, author, year, yearFrom, yearTo, publishers, rating, minRating);
+        return ResponseEntity.ok(this.booksService.getBookFacets(filter));
     }
 
     @GetMapping
-    public List<Book> getAllBooks() {
-        return this.booksService.getAllBooks();
+    public ResponseEntity<byte[]> getAllBooks(@RequestParam(defaultValue = "false") boolean includeRatings,
+                                              @Valid PageRequestDTO page,
+                                              @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false)
+                                              String ifNoneMatch,
+                                              @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                              String acceptEncoding) {
+        long catalogVersion = this.catalogVersionService.current();
+        String etag = catalogETag(catalogVersion);
+        if (isNotModified(ifNoneMatch, etag)) {
+            return notModified(weak(etag));
+        }
+        CachedPage cached = this.catalogResponseCache.get(catalogVersion, page, includeRatings,
+                () -> this.booksService.getAllBooks(page, includeRatings));
+        // Cached bytes are written as they are, without another pass through Jackson or the compressor
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(weak(etag))
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (cached.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, cached.getNextCursor());
+        }
+        if (acceptsGzip(acceptEncoding)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(cached.getGzip());
+        }
+        return response.body(cached.getJson());
+    }
+
+    @GetMapping("/top")
+    public ResponseEntity<List<BookDTO>> getTopBooks(@Valid TopBooksRequestDTO request) {
+        return ResponseEntity.ok(this.booksService.getTopBooks(request));
+    }
+
+    // Written on an async thread without a timeout, a full export takes as long as the client reads it.
+    // Every other async request keeps the default timeout
+    @GetMapping(path = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public WebAsyncTask<Void> exportBooks(HttpServletResponse response) {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        return new WebAsyncTask<>(NO_TIMEOUT, () -> {
+            this.booksExportService.exportBooks(response.getOutputStream());
+            response.flushBuffer();
+            return null;
+        });
+    }
+
+    @PostMapping(path = "/import", consumes = "text/csv")
+    public ResponseEntity<ImportResultDTO> importBooksFromCsv(InputStream body) throws IOException {
+        return ResponseEntity.ok(this.booksImportService.importBooks(body, ImportFormat.CSV));
+    }
+
+    @PostMapping(path = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ImportResultDTO> importBooksFromNdjson(InputStream body) throws IOException {
+        return ResponseEntity.ok(this.booksImportService.importBooks(body, ImportFormat.NDJSON));
     }
 
     @GetMapping("/{id}")
-    public Book getBookByID(@PathVariable String id) {
+    public ResponseEntity<BookDTO> getBookByID(@PathVariable String id,
+                                               @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false)
+                                               String ifNoneMatch) {
         if (!id.matches("\\d+")) {
             throw new BadRequestException("ID must be integer");
         }
-        return this.booksService.getBookByID(Integer.parseInt(id));
+        int bookId = Integer.parseInt(id);
+        // Revalidation reads the version column only, the book is loaded once the client's copy is stale
+        if (ifNoneMatch != null) {
+            Optional<String> etag = this.booksService.getBookVersion(bookId).map(BooksController::bookETag);
+            if (etag.isPresent() && isNotModified(ifNoneMatch, etag.get())) {
+                return notModified(etag.get());
+            }
+        }
+        BookDTO book = this.booksService.getBookByID(bookId);
+        return ResponseEntity.ok().eTag(bookETag(book.getVersion())).body(book);
     }
 
     @PostMapping()
@@ -52,6 +180,12 @@ public class BooksController {
 
     @PostMapping("/rating")
     public ResponseEntity<?> rateBook(@RequestBody @Valid RateBookDTO ratings) {
+        if (this.ratingIngestionService.isPresent()) {
+            this.booksService.checkBooksExist(ratings.getRatings());
+            String ingestionId = this.ratingIngestionService.get().enqueue(ratings.getRatings());
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(new RatingIngestionResponse("Ratings accepted", ingestionId));
+        }
         return this.booksService.rateBook(ratings);
     }
 
@@ -70,4 +204,49 @@ public class BooksController {
         }
         return this.booksService.deleteBook(Integer.parseInt(id));
     }
+
+    // The version is read before the page itself, so a change committed in between can only make the client
+    // download again. Catalog ETags are weak because the same page is also served gzip encoded.
+    private static String catalogETag(long catalogVersion) {
+        return "catalog-" + catalogVersion;
+    }
+
+    private static String weak(String etag) {
+        return "W/\"" + etag + "\"";
+    }
+
+    private static String bookETag(long version) {
+        return String.valueOf(version);
+    }
+
+    private static boolean isNotModified(String ifNoneMatch, String etag) {
+        return ifNoneMatch != null && ETag.parse(ifNoneMatch).stream()
+                .anyMatch(tag -> tag.isWildcard() || tag.tag().equals(etag));
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].strip();
+            if (name.equalsIgnoreCase("gzip") || name.equals("*")) {
+                return parts.length == 1 || !parts[1].strip().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+
+    private static ResponseEntity<List<BookDTO>> toResponse(BooksPage page, String etag) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(weak(etag));
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getBooks());
+    }
 }
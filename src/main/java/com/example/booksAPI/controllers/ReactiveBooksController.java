@@ -0,0 +1,67 @@
+package com.example.booksAPI.controllers;
+
+import com.example.booksAPI.dto.BookDTO;
+import com.example.booksAPI.dto.BookFilterDTO;
+import com.example.booksAPI.enums.Publisher;
+import com.example.booksAPI.exceptions.BadRequestException;
+import com.example.booksAPI.services.ReactiveBooksService;
+import com.example.booksAPI.validation.annotations.IsRating;
+import com.example.booksAPI.validation.annotations.IsYear;
+import com.example.booksAPI.validation.annotations.ValueOfEnum;
+import jakarta.validation.constraints.Pattern;
+import lombok.AllArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * A streaming variant of /books/filter, chosen for requests that accept NDJSON. Every matching book is
+ * written in id order as soon as its row arrives and the next one is requested only after the write, while
+ * the servlet thread goes back to the pool for the whole query. The stream is the whole result, so the
+ * paging parameters of the JSON endpoint are rejected rather than ignored: the X-Next-Cursor header would
+ * have to be sent before the last row is known. /books and /books/{id} stay on the servlet stack, a page
+ * is at most 500 books and a single book is served from the cache.
+ */
+@RestController
+@RequestMapping(path = "/books")
+@Profile("reactive")
+@AllArgsConstructor
+@Validated
+public class ReactiveBooksController {
+    private ReactiveBooksService reactiveBooksService;
+
+    @GetMapping(path = "/filter", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BookDTO> streamFilteredBooks(@RequestParam(required = false) String title,
+                                            @IsYear @RequestParam(required = false) String year,
+                                            @IsYear @RequestParam(required = false) String yearFrom,
+                                            @IsYear @RequestParam(required = false) String yearTo,
+                                            @RequestParam(required = false) String author,
+                                            @RequestParam(name = "publisher", required = false)
+                                            List<@ValueOfEnum(enumClass = Publisher.class,
+                                                    message = "Invalid publisher") String> publishers,
+                                            @IsRating @RequestParam(required = false) String rating,
+                                            @Pattern(regexp = "^([1-4](\\.[0-9]+)?|5(\\.0+)?)$",
+                                                    message = "Minimum rating must be in range 1-5")
+                                            @RequestParam(required = false) String minRating,
+                                            @RequestParam(required = false) String includeRatings,
+                                            @RequestParam(required = false) String limit,
+                                            @RequestParam(required = false) String sort,
+                                            @RequestParam(required = false) String order,
+                                            @RequestParam(required = false) String after) {
+        if (Stream.of(includeRatings, limit, sort, order, after).anyMatch(Objects::nonNull)) {
+            throw new BadRequestException("includeRatings, limit, sort, order and after aren't supported for "
+                    + "NDJSON streams, request application/json to page through the results");
+        }
+        BookFilterDTO filter = new BookFilterDTO(title, author, year, yearFrom, yearTo, publishers, rating, minRating);
+        return this.reactiveBooksService.streamFilteredBooks(filter);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.booksAPI.datasource;
+
+import javax.sql.DataSource;
+
+/**
+ * Per-request routing state. A request either reads from the primary, because its client wrote recently,
+ * or from one replica chosen on its first read, so that all of its queries see the same replication state.
+ */
+public final class ReadRoutingContext {
+    private static final ThreadLocal<ReadRoutingContext> CURRENT = new ThreadLocal<>();
+
+    private final boolean primaryOnly;
+    private DataSource replica;
+
+    private ReadRoutingContext(boolean primaryOnly) {
+        this.primaryOnly = primaryOnly;
+    }
+
+    public static void begin(boolean primaryOnly) {
+        CURRENT.set(new ReadRoutingContext(primaryOnly));
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    static ReadRoutingContext current() {
+        return CURRENT.get();
+    }
+
+    boolean isPrimaryOnly() {
+        return this.primaryOnly;
+    }
+
+    DataSource getReplica() {
+        return this.replica;
+    }
+
+    void setReplica(DataSource replica) {
+        this.replica = replica;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.booksAPI.datasource;
+
+import com.example.booksAPI.enums.ReplicaSelection;
+import lombok.Data;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "books.datasource")
+public class ReplicaDataSourceProperties {
+    private List<DataSourceProperties> replicas = new ArrayList<>();
+
+    private ReplicaSelection replicaSelection = ReplicaSelection.ROUND_ROBIN;
+
+    // How long a client that wrote keeps reading from the primary, it should exceed the usual replication lag
+    private Duration readAfterWriteWindow = Duration.ofSeconds(5);
+}
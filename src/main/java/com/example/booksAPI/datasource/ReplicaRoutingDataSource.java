@@ -0,0 +1,92 @@
+package com.example.booksAPI.datasource;
+
+import com.example.booksAPI.enums.ReplicaSelection;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Hands out replica connections for read-only transactions. It sits behind the read-only side of a
+ * LazyConnectionDataSourceProxy, which only asks for a connection once the transaction is marked read-only,
+ * and falls back to the primary when the request must read its own writes or no replica is reachable.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements DisposableBean {
+    private final DataSource primary;
+    private final List<HikariDataSource> replicas;
+    private final ReplicaSelection selection;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicas, ReplicaSelection selection) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.selection = selection;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return this.route(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return this.route(target -> target.getConnection(username, password));
+    }
+
+    @Override
+    public void destroy() {
+        this.replicas.forEach(HikariDataSource::close);
+    }
+
+    private Connection route(ConnectionOpener opener) throws SQLException {
+        ReadRoutingContext context = ReadRoutingContext.current();
+        if (context != null && context.isPrimaryOnly()) {
+            return opener.open(this.primary);
+        }
+        DataSource replica = context == null ? null : context.getReplica();
+        if (replica == null) {
+            replica = this.select();
+            if (context != null) {
+                context.setReplica(replica);
+            }
+        }
+        try {
+            return opener.open(replica);
+        } catch (SQLException e) {
+            log.warn("Replica unavailable, reading from the primary: {}", e.getMessage());
+            return opener.open(this.primary);
+        }
+    }
+
+    // Least loaded starts scanning at the round-robin position, so idle replicas share the traffic evenly
+    private DataSource select() {
+        int start = Math.floorMod(this.next.getAndIncrement(), this.replicas.size());
+        if (this.selection == ReplicaSelection.ROUND_ROBIN) {
+            return this.replicas.get(start);
+        }
+        return IntStream.range(0, this.replicas.size())
+                .mapToObj(offset -> this.replicas.get((start + offset) % this.replicas.size()))
+                .min(Comparator.comparingInt(ReplicaRoutingDataSource::activeConnections))
+                .orElseThrow();
+    }
+
+    private static int activeConnections(HikariDataSource replica) {
+        HikariPoolMXBean pool = replica.getHikariPoolMXBean();
+        return pool == null ? 0 : pool.getActiveConnections();
+    }
+
+    @FunctionalInterface
+    private interface ConnectionOpener {
+        Connection open(DataSource target) throws SQLException;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.booksAPI.dto;
+
+import com.example.booksAPI.enums.Publisher;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BookColumnRowDTO {
+    private Integer id;
+    private Publisher publisher;
+    private Integer publication_year;
+    private String author;
+    private Double average_rating;
+    private Integer score_1_count;
+    private Integer score_2_count;
+    private Integer score_3_count;
+    private Integer score_4_count;
+    private Integer score_5_count;
+}
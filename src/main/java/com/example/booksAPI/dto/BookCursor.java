@@ -0,0 +1,56 @@
+package com.example.booksAPI.dto;
+
+import com.example.booksAPI.entities.Book;
+import com.example.booksAPI.enums.BookSort;
+import com.example.booksAPI.exceptions.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+@Data
+@AllArgsConstructor
+public class BookCursor {
+    private BookSort sort;
+    private Sort.Direction direction;
+    private Integer id;
+    private Comparable<?> value;
+
+    public static BookCursor of(BookSort sort, Sort.Direction direction, Book last) {
+        Comparable<?> value = switch (sort) {
+            case ID -> null;
+            case TITLE -> last.getTitle();
+            case YEAR -> last.getPublication_year();
+            case RATING -> last.getAverage_rating();
+        };
+        return new BookCursor(sort, direction, last.getId(), value);
+    }
+
+    // A null value leaves out the last part, so that it stays apart from an empty title
+    public String encode() {
+        String raw = sort + ":" + direction + ":" + id + (value == null ? "" : ":" + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static BookCursor decode(String cursor, BookSort sort, Sort.Direction direction) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 4);
+            if (parts.length < 3 || BookSort.valueOf(parts[0]) != sort
+                    || Sort.Direction.valueOf(parts[1]) != direction) {
+                throw new BadRequestException("Cursor doesn't match requested sort order");
+            }
+            Comparable<?> value = parts.length == 3 ? null : switch (sort) {
+                case ID -> null;
+                case TITLE -> parts[3];
+                case YEAR -> Integer.valueOf(parts[3]);
+                case RATING -> Double.valueOf(parts[3]);
+            };
+            return new BookCursor(sort, direction, Integer.valueOf(parts[2]), value);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.booksAPI.dto;
+
+import com.example.booksAPI.entities.Book;
+import com.example.booksAPI.enums.Publisher;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookDTO {
+    private Integer id;
+    private String title;
+    private Integer publication_year;
+    private String author;
+    private Publisher publisher;
+    private Integer rating_count;
+    private Double average_rating;
+    private List<Integer> rating_histogram;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<RatingDTO> ratings;
+
+    @JsonIgnore
+    private Long version;
+
+    // Built by the scalar queries of BooksRepository, which never load the entity
+    public BookDTO(Integer id, String title, Integer publication_year, String author, Publisher publisher,
+                   Integer rating_count, Double average_rating, Integer score_1_count, Integer score_2_count,
+                   Integer score_3_count, Integer score_4_count, Integer score_5_count, Long version) {
+        this(id, title, publication_year, author, publisher, rating_count, average_rating,
+                List.of(score_1_count, score_2_count, score_3_count, score_4_count, score_5_count), null, version);
+    }
+
+    public static BookDTO of(Book book, List<RatingDTO> ratings) {
+        return new BookDTO(book.getId(), book.getTitle(), book.getPublication_year(), book.getAuthor(),
+                book.getPublisher(), book.getRating_count(), book.getAverage_rating(), book.getRating_histogram(),
+                ratings, book.getVersion());
+    }
+}
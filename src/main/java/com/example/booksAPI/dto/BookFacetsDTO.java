@@ -0,0 +1,16 @@
+package com.example.booksAPI.dto;
+
+import com.example.booksAPI.enums.Publisher;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class BookFacetsDTO {
+    private int total;
+    private Map<Publisher, Integer> publishers;
+    private Map<Integer, Integer> decades;
+    private Map<Integer, Integer> ratings;
+}
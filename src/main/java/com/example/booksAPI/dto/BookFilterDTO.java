@@ -0,0 +1,21 @@
+package com.example.booksAPI.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookFilterDTO {
+    private String title;
+    private String author;
+    private String year;
+    private String yearFrom;
+    private String yearTo;
+    private List<String> publishers;
+    private String rating;
+    private String minRating;
+}
@@ -0,0 +1,12 @@
+package com.example.booksAPI.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BookTextDTO {
+    private Integer id;
+    private String title;
+    private String author;
+}
@@ -0,0 +1,13 @@
+package com.example.booksAPI.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class BooksPage {
+    private List<BookDTO> books;
+    private String nextCursor;
+}
@@ -0,0 +1,37 @@
+package com.example.booksAPI.dto;
+
+import com.example.booksAPI.enums.Publisher;
+import com.example.booksAPI.validation.annotations.ValueOfEnum;
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportBookDTO {
+    @NotNull(message = "cannot be null")
+    @NotEmpty(message = "cannot be empty")
+    private String title;
+
+    @NotNull(message = "cannot be null")
+    @NotEmpty(message = "cannot be empty")
+    @Pattern(regexp = "^(19[0-9]{2}|20[0-9]{2})$", message = "it is not a valid year")
+    private String year;
+
+    @NotNull(message = "cannot be null")
+    @NotEmpty(message = "cannot be empty")
+    private String author;
+
+    @ValueOfEnum(enumClass = Publisher.class, message = "must be any of: 'POLLUB', 'UMCS', 'UP'")
+    @NotNull(message = "cannot be null")
+    private String publisher;
+
+    private List<@NotNull(message = "cannot be null")
+            @Min(value = 1, message = "must be in range 1-5")
+            @Max(value = 5, message = "must be in range 1-5") Integer> ratings = new ArrayList<>();
+}
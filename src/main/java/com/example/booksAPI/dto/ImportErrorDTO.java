@@ -0,0 +1,11 @@
+package com.example.booksAPI.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ImportErrorDTO {
+    private long line;
+    private String message;
+}
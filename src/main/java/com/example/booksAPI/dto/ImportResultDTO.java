@@ -0,0 +1,15 @@
+package com.example.booksAPI.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ImportResultDTO {
+    private int imported;
+    private int failed;
+    private boolean errorsTruncated;
+    private List<ImportErrorDTO> errors;
+}
@@ -0,0 +1,41 @@
+package com.example.booksAPI.dto;
+
+import com.example.booksAPI.enums.BookSort;
+import com.example.booksAPI.validation.annotations.ValueOfEnum;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Sort;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PageRequestDTO {
+    public static final int MAX_LIMIT = 500;
+
+    @NotNull(message = "cannot be null")
+    @Min(value = 1, message = "must be in range 1-" + MAX_LIMIT)
+    @Max(value = MAX_LIMIT, message = "must be in range 1-" + MAX_LIMIT)
+    private Integer limit = 50;
+
+    @ValueOfEnum(enumClass = BookSort.class, message = "must be any of: 'ID', 'TITLE', 'YEAR', 'RATING'")
+    @NotNull(message = "cannot be null")
+    private String sort = BookSort.ID.name();
+
+    @ValueOfEnum(enumClass = Sort.Direction.class, message = "must be any of: 'ASC', 'DESC'")
+    @NotNull(message = "cannot be null")
+    private String order = Sort.Direction.ASC.name();
+
+    private String after;
+
+    public BookSort getBookSort() {
+        return BookSort.valueOf(this.sort);
+    }
+
+    public Sort.Direction getDirection() {
+        return Sort.Direction.valueOf(this.order);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.booksAPI.dto;
+
+import lombok.Data;
+
+@Data
+public class RatingAggregateDTO {
+    private final Integer bookId;
+    private int count;
+    private long sum;
+    private final int[] histogram = new int[5];
+
+    public void add(int score) {
+        this.count++;
+        this.sum += score;
+        this.histogram[score - 1]++;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.booksAPI.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RatingDTO {
+    @JsonIgnore
+    private Integer bookId;
+    private Integer id;
+    private Integer score;
+}
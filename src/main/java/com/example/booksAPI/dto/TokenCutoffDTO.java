@@ -0,0 +1,13 @@
+package com.example.booksAPI.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+public class TokenCutoffDTO {
+    private Integer userId;
+    private Instant tokensValidAfter;
+}
@@ -0,0 +1,33 @@
+package com.example.booksAPI.dto;
+
+import com.example.booksAPI.enums.Publisher;
+import com.example.booksAPI.validation.annotations.ValueOfEnum;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TopBooksRequestDTO {
+    public static final int MAX_LIMIT = 100;
+
+    @NotNull(message = "cannot be null")
+    @Min(value = 1, message = "must be in range 1-" + MAX_LIMIT)
+    @Max(value = MAX_LIMIT, message = "must be in range 1-" + MAX_LIMIT)
+    private Integer limit = 10;
+
+    @NotNull(message = "cannot be null")
+    @Min(value = 0, message = "cannot be negative")
+    private Integer minVotes = 0;
+
+    @ValueOfEnum(enumClass = Publisher.class, message = "Invalid publisher")
+    private String publisher;
+
+    public Publisher getPublisherFilter() {
+        return this.publisher == null ? null : Publisher.valueOf(this.publisher);
+    }
+}
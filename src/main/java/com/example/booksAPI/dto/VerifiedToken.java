@@ -0,0 +1,20 @@
+package com.example.booksAPI.dto;
+
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.List;
+
+@Value
+public class VerifiedToken {
+    String subject;
+    Integer userId;
+    String tokenId;
+    List<String> authorities;
+    Instant issuedAt;
+    Instant expiration;
+
+    public boolean isExpired(Instant now) {
+        return !this.expiration.isAfter(now);
+    }
+}
@@ -2,20 +2,34 @@ package com.example.booksAPI.entities;
 
 import com.example.booksAPI.enums.Publisher;
 import jakarta.persistence.*;
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.UpdateTimestamp;
 
+import java.time.Instant;
 import java.util.List;
 
-@Table(name = "books")
+@Table(name = "books", indexes = {
+        @Index(name = "idx_books_title_id", columnList = "title, id"),
+        @Index(name = "idx_books_year_id", columnList = "publication_year, id"),
+        @Index(name = "idx_books_rating_id", columnList = "average_rating, id"),
+        @Index(name = "idx_books_publisher_year_id", columnList = "publisher, publication_year, id"),
+        @Index(name = "idx_books_publisher_rating_id", columnList = "publisher, average_rating, id")
+})
 @Entity
 @Data
-@AllArgsConstructor
 @NoArgsConstructor
+@DynamicUpdate
 public class Book {
+    public static final String ID_GENERATOR = "books";
+
+    // Table-backed pooled ids instead of IDENTITY so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = ID_GENERATOR)
+    @TableGenerator(name = ID_GENERATOR, table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = ID_GENERATOR, allocationSize = 50)
     private Integer id;
 
     private String title;
@@ -27,6 +41,61 @@ public class Book {
     @Enumerated(EnumType.STRING)
     private Publisher publisher;
 
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Double average_rating = 0.0;
+
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Integer rating_count = 0;
+
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long rating_sum = 0L;
+
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Integer score_1_count = 0;
+
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Integer score_2_count = 0;
+
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Integer score_3_count = 0;
+
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Integer score_4_count = 0;
+
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Integer score_5_count = 0;
+
+    // Also bumped by the bulk rating updates, it is the strong ETag of the book
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long version;
+
+    @UpdateTimestamp
+    private Instant updated_at;
+
     @OneToMany(mappedBy = "book", cascade = CascadeType.ALL)
     private List<Rating> ratings;
+
+    public Book(Integer id, String title, Integer publication_year, String author, Publisher publisher,
+                List<Rating> ratings) {
+        this.id = id;
+        this.title = title;
+        this.publication_year = publication_year;
+        this.author = author;
+        this.publisher = publisher;
+        this.ratings = ratings;
+    }
+
+    public List<Integer> getRating_histogram() {
+        return List.of(score_1_count, score_2_count, score_3_count, score_4_count, score_5_count);
+    }
 }
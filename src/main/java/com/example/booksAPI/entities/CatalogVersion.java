@@ -0,0 +1,24 @@
+package com.example.booksAPI.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Table(name = "catalog_version")
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogVersion {
+    public static final int CATALOG_ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private Long version;
+}
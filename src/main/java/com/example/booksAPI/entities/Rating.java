@@ -8,7 +8,11 @@ import lombok.Data;
 @Data
 @Entity
 public class Rating {
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    public static final String ID_GENERATOR = "ratings";
+
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = ID_GENERATOR)
+    @TableGenerator(name = ID_GENERATOR, table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = ID_GENERATOR, allocationSize = 50)
     @Id
     private Integer id;
 
@@ -16,6 +20,6 @@ public class Rating {
     private Integer score;
 
     @JsonIgnore
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Book book;
 }
@@ -5,6 +5,7 @@ import lombok.Data;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
 
@@ -22,6 +23,9 @@ public class User implements UserDetails {
     @Column(nullable = false)
     private String password;
 
+    // Tokens issued before this instant are rejected, set on logout from all devices
+    private Instant tokens_valid_after;
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return List.of();
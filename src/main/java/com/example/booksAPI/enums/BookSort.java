@@ -0,0 +1,15 @@
+package com.example.booksAPI.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum BookSort {
+    ID("id"),
+    TITLE("title"),
+    YEAR("publication_year"),
+    RATING("average_rating");
+
+    private final String property;
+}
@@ -0,0 +1,6 @@
+package com.example.booksAPI.enums;
+
+public enum ReplicaSelection {
+    ROUND_ROBIN,
+    LEAST_LOADED;
+}
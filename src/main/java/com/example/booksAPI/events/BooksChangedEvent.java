@@ -0,0 +1,22 @@
+package com.example.booksAPI.events;
+
+import com.example.booksAPI.dto.BookDTO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class BooksChangedEvent {
+    private List<BookDTO> savedBooks;
+    private List<Integer> deletedIds;
+
+    public static BooksChangedEvent saved(BookDTO book) {
+        return new BooksChangedEvent(List.of(book), List.of());
+    }
+
+    public static BooksChangedEvent deleted(int id) {
+        return new BooksChangedEvent(List.of(), List.of(id));
+    }
+}
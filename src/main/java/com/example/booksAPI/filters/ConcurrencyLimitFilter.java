@@ -0,0 +1,95 @@
+package com.example.booksAPI.filters;
+
+import com.example.booksAPI.concurrency.GradientLimit;
+import com.example.booksAPI.dto.ErrorResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Rejects requests over the current read or write limit with 503 before they take a Tomcat thread into
+ * the security chain and the services, so a slow database sheds load instead of queueing it.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    public static final String LIMIT_METRIC = "books.concurrency.limit";
+    public static final String IN_FLIGHT_METRIC = "books.concurrency.in.flight";
+    public static final String REJECTED_METRIC = "books.concurrency.rejected";
+
+    private final GradientLimit readLimit;
+    private final GradientLimit writeLimit;
+    private final ObjectMapper objectMapper;
+    private final String retryAfter;
+    private final Counter readsRejected;
+    private final Counter writesRejected;
+
+    public ConcurrencyLimitFilter(GradientLimit readLimit, GradientLimit writeLimit, Duration retryAfter,
+                                  ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.readLimit = readLimit;
+        this.writeLimit = writeLimit;
+        this.objectMapper = objectMapper;
+        this.retryAfter = String.valueOf(Math.max(1, retryAfter.toSeconds()));
+        this.readsRejected = this.registerMetrics(meterRegistry, "read", readLimit);
+        this.writesRejected = this.registerMetrics(meterRegistry, "write", writeLimit);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        // Health checks and scrapes have to answer exactly when the API is overloaded
+        return request.getRequestURI().startsWith(request.getContextPath() + "/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        boolean write = ReadAfterWriteFilter.WRITE_METHODS.contains(request.getMethod());
+        GradientLimit limit = write ? this.writeLimit : this.readLimit;
+        if (!limit.tryAcquire()) {
+            (write ? this.writesRejected : this.readsRejected).increment();
+            this.reject(response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, response);
+            completed = true;
+        } finally {
+            // Async requests have already given their thread back, and failures are usually fast,
+            // neither says how long the servlet thread was busy under the current load
+            if (completed && !request.isAsyncStarted() && response.getStatus() < 500) {
+                limit.release(System.nanoTime() - start);
+            } else {
+                limit.release();
+            }
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, this.retryAfter);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        this.objectMapper.writeValue(response.getOutputStream(),
+                new ErrorResponse("Server is overloaded, try again later", "503"));
+    }
+
+    private Counter registerMetrics(MeterRegistry meterRegistry, String type, GradientLimit limit) {
+        meterRegistry.gauge(LIMIT_METRIC, Tags.of("type", type), limit, GradientLimit::getLimit);
+        meterRegistry.gauge(IN_FLIGHT_METRIC, Tags.of("type", type), limit, GradientLimit::getInFlight);
+        return meterRegistry.counter(REJECTED_METRIC, "type", type);
+    }
+}
@@ -3,7 +3,11 @@ package com.example.booksAPI.filters;
 import com.example.booksAPI.dto.ErrorResponse;
 import com.example.booksAPI.exceptions.BadRequestException;
 import com.example.booksAPI.exceptions.ResourceNotFoundException;
+import com.example.booksAPI.exceptions.ServiceUnavailableException;
+import com.example.booksAPI.exceptions.TooManyRequestsException;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.AuthenticationException;
@@ -25,6 +29,26 @@ public class GlobalExceptionFilter {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLockingFailureException(Exception ex) {
+        ErrorResponse response = new ErrorResponse("Book was modified concurrently, try again", "409");
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ErrorResponse> handleTooManyRequestsException(Exception ex) {
+        ErrorResponse response = new ErrorResponse(ex.getMessage(), "429");
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(response);
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleServiceUnavailableException(Exception ex) {
+        ErrorResponse response = new ErrorResponse(ex.getMessage(), "503");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    }
+
     @ExceptionHandler({BadRequestException.class, MethodArgumentNotValidException.class,
             ConstraintViolationException.class, AuthenticationException.class})
     public ResponseEntity<?> handleBadRequestException(Exception ex) {
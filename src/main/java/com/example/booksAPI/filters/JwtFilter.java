@@ -1,6 +1,11 @@
 package com.example.booksAPI.filters;
 
+import com.example.booksAPI.auth.AuthenticatedUser;
+import com.example.booksAPI.auth.TokenDenyList;
+import com.example.booksAPI.dto.VerifiedToken;
 import com.example.booksAPI.services.JwtService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,6 +13,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import org.apache.coyote.BadRequestException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -21,8 +27,15 @@ import java.io.IOException;
 @Component
 @RequiredArgsConstructor
 public class JwtFilter extends OncePerRequestFilter {
+    public static final String AUTHENTICATION_METRIC = "books.auth.authentication";
+
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final TokenDenyList tokenDenyList;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${books.auth.stateless:true}")
+    private boolean statelessAuth;
 
     @Override
     protected void doFilterInternal(
@@ -30,25 +43,44 @@ public class JwtFilter extends OncePerRequestFilter {
             @NonNull HttpServletResponse response,
             @NonNull FilterChain filterChain) throws ServletException, IOException {
         String authHeader = request.getHeader("Authorization");
-        String jwt;
-        String email;
+        VerifiedToken token;
 
         if(authHeader == null || !authHeader.startsWith("Bearer")){
             filterChain.doFilter(request, response);
             return;
         }
 
-        jwt = authHeader.substring(7);
-        email = jwtService.extractUsername(jwt);
-        if(email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(email);
-            if(jwtService.isTokenValid(jwt, userDetails)){
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
+        Timer.Sample sample = Timer.start(this.meterRegistry);
+        String result = "rejected";
+        try {
+            token = jwtService.verify(authHeader.substring(7));
+            if(token.getSubject() != null && SecurityContextHolder.getContext().getAuthentication() == null
+                    && !tokenDenyList.isRevoked(token)) {
+                UserDetails userDetails = resolvePrincipal(token);
+                if(userDetails != null){
+                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(userDetails, token, userDetails.getAuthorities());
+                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authToken);
+                    result = "authenticated";
+                }
             }
+        } catch (RuntimeException e) {
+            result = "error";
+            throw e;
+        } finally {
+            sample.stop(this.meterRegistry.timer(AUTHENTICATION_METRIC, "result", result));
         }
 
         filterChain.doFilter(request, response);
     }
+
+    // Tokens carrying a user id are trusted as-is once the deny list has loaded, older tokens and
+    // the database mode still look the user up
+    private UserDetails resolvePrincipal(VerifiedToken token) {
+        if (this.statelessAuth && token.getUserId() != null && this.tokenDenyList.isReady()) {
+            return AuthenticatedUser.from(token);
+        }
+        UserDetails userDetails = this.userDetailsService.loadUserByUsername(token.getSubject());
+        return jwtService.isTokenValid(token, userDetails) ? userDetails : null;
+    }
 }
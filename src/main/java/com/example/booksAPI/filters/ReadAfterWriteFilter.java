@@ -0,0 +1,68 @@
+package com.example.booksAPI.filters;
+
+import com.example.booksAPI.datasource.ReadRoutingContext;
+import com.example.booksAPI.datasource.ReplicaDataSourceProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Sends the reads of clients that wrote within the read-after-write window to the primary, so they
+ * never see a replica that hasn't caught up with their own change yet. Registered as a plain servlet
+ * filter it runs after the security chain, so the client is identified by its authenticated name.
+ * The window is tracked per instance, which holds as long as a client's requests reach the same node.
+ */
+@Component
+@ConditionalOnProperty(name = "books.datasource.replicas[0].url")
+public class ReadAfterWriteFilter extends OncePerRequestFilter {
+    static final Set<String> WRITE_METHODS = Set.of(
+            HttpMethod.POST.name(), HttpMethod.PUT.name(), HttpMethod.PATCH.name(), HttpMethod.DELETE.name());
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadAfterWriteFilter(ReplicaDataSourceProperties properties) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getReadAfterWriteWindow())
+                .maximumSize(100_000)
+                .build();
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        String client = currentClient();
+        boolean write = WRITE_METHODS.contains(request.getMethod());
+        ReadRoutingContext.begin(write || (client != null && this.recentWriters.getIfPresent(client) != null));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadRoutingContext.end();
+            if (write && client != null) {
+                this.recentWriters.put(client, Boolean.TRUE);
+            }
+        }
+    }
+
+    private static String currentClient() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.booksAPI.jobs;
+
+import com.example.booksAPI.entities.Book;
+import com.example.booksAPI.entities.Rating;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves the table-backed id generators past the highest id already stored, so rows written before
+ * the switch from IDENTITY (or seeded by scripts with explicit ids) never collide with new ones.
+ * Runs after the schema and any init scripts, before the application starts serving requests.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@DependsOnDatabaseInitialization
+public class IdGeneratorsSyncJob implements InitializingBean {
+    private static final Map<String, String> TABLES_BY_GENERATOR = Map.of(
+            Book.ID_GENERATOR, "books",
+            Rating.ID_GENERATOR, "ratings"
+    );
+
+    // Hibernate creates the generator table while building the EntityManagerFactory
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public void afterPropertiesSet() {
+        TABLES_BY_GENERATOR.forEach((generator, table) -> this.transactionTemplate.executeWithoutResult(status -> sync(generator, table)));
+    }
+
+    private void sync(String generator, String table) {
+        Integer nextId = this.jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) + 1 FROM " + table, Integer.class);
+        List<Integer> current = this.jdbcTemplate.queryForList(
+                "SELECT next_val FROM id_generators WHERE sequence_name = ?", Integer.class, generator);
+        if (current.isEmpty()) {
+            this.jdbcTemplate.update("INSERT INTO id_generators (sequence_name, next_val) VALUES (?, ?)", generator, nextId);
+        } else if (this.jdbcTemplate.update("UPDATE id_generators SET next_val = ? WHERE sequence_name = ? AND next_val < ?",
+                nextId, generator, nextId) == 0) {
+            return;
+        }
+        log.info("Id generator '{}' moved to {}", generator, nextId);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.booksAPI.jobs;
+
+import com.example.booksAPI.repositories.BooksRepository;
+import com.example.booksAPI.services.CatalogVersionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RatingAggregatesRepairJob implements ApplicationRunner {
+    private final BooksRepository booksRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final CatalogVersionService catalogVersionService;
+
+    @Value("${books.ratings.repair-on-startup:false}")
+    private boolean repairOnStartup;
+
+    @Value("${books.ratings.repair-batch-size:1000}")
+    private int batchSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (this.repairOnStartup) {
+            this.repair();
+        }
+    }
+
+    // Recomputes the aggregates from the raw ratings rows, one id range per transaction
+    // so that a large catalog is never locked as a whole
+    public int repair() {
+        int maxId = this.booksRepository.findMaxId();
+        int repaired = 0;
+        for (int fromId = 1; fromId <= maxId; fromId += this.batchSize) {
+            int from = fromId;
+            int to = fromId + this.batchSize - 1;
+            Integer updated = this.transactionTemplate.execute(
+                    status -> this.booksRepository.recomputeRatingAggregates(from, to, Instant.now()));
+            repaired += updated == null ? 0 : updated;
+        }
+        this.catalogVersionService.increment();
+        log.info("Recomputed rating aggregates for {} books", repaired);
+        return repaired;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.booksAPI.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Times every public service method as books.service.invocations, tagged with the service, the method and
+ * the exception it ended with. Asynchronous methods are timed until their future completes or their Flux
+ * terminates rather than until it is returned. Controllers are covered by http.server.requests and
+ * repositories by spring.data.repository.invocations, both recorded by Spring Boot.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class ServiceMetricsAspect {
+    public static final String METRIC_NAME = "books.service.invocations";
+
+    private final MeterRegistry meterRegistry;
+
+    @Around("execution(public * com.example.booksAPI.services..*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(this.meterRegistry);
+        Tags tags = Tags.of("service", joinPoint.getSignature().getDeclaringType().getSimpleName(),
+                "method", joinPoint.getSignature().getName());
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            this.stop(sample, tags, e);
+            throw e;
+        }
+        if (result instanceof CompletionStage<?> stage) {
+            return stage.whenComplete((value, e) -> this.stop(sample, tags, e));
+        }
+        if (result instanceof Flux<?> flux) {
+            return flux.doOnComplete(() -> this.stop(sample, tags, null))
+                    .doOnCancel(() -> this.stop(sample, tags, null))
+                    .doOnError(e -> this.stop(sample, tags, e));
+        }
+        this.stop(sample, tags, null);
+        return result;
+    }
+
+    private void stop(Timer.Sample sample, Tags tags, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        sample.stop(Timer.builder(METRIC_NAME)
+                .tags(tags)
+                .tag("exception", cause == null ? "none" : cause.getClass().getSimpleName())
+                .register(this.meterRegistry));
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.booksAPI.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.stream.Collectors;
+
+/**
+ * Streams the jdk.VirtualThreadPinned events of the running JVM while virtual threads are enabled. A
+ * virtual thread is pinned when it blocks inside a synchronized block or a native frame, its carrier then
+ * blocks with it and the few carriers there are run out long before the requests do. Every event longer
+ * than the threshold is counted as books.virtual.threads.pinned and logged with the frames that pinned it.
+ */
+@Slf4j
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+    public static final String METRIC_NAME = "books.virtual.threads.pinned";
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 8;
+
+    private final Counter pinned;
+    private final Duration threshold;
+
+    private volatile RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${books.virtual-threads.pinning-threshold:20ms}") Duration threshold) {
+        this.pinned = meterRegistry.counter(METRIC_NAME);
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void start() {
+        RecordingStream stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(this.threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        this.stream = stream;
+    }
+
+    @Override
+    public void stop() {
+        RecordingStream stream = this.stream;
+        this.stream = null;
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return this.stream != null;
+    }
+
+    public double getPinnedCount() {
+        return this.pinned.count();
+    }
+
+    void onPinned(RecordedEvent event) {
+        this.pinned.increment();
+        log.warn("Virtual thread {} pinned its carrier for {} ms at{}", threadName(event),
+                event.getDuration().toMillis(), frames(event.getStackTrace()));
+    }
+
+    private static String threadName(RecordedEvent event) {
+        return event.getThread() == null ? "unknown" : event.getThread().getJavaName();
+    }
+
+    private static String frames(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return " unknown frames";
+        }
+        return stackTrace.getFrames().stream()
+                .limit(LOGGED_FRAMES)
+                .map(VirtualThreadPinningMonitor::frame)
+                .collect(Collectors.joining());
+    }
+
+    private static String frame(RecordedFrame frame) {
+        return "\n\t" + frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + ":" + frame.getLineNumber();
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.booksAPI.ranking;
+
+import com.example.booksAPI.dto.BookDTO;
+import com.example.booksAPI.entities.Book;
+import com.example.booksAPI.enums.Publisher;
+import com.example.booksAPI.events.BooksChangedEvent;
+import com.example.booksAPI.repositories.BooksRepository;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Books ordered by the Bayesian average of their ratings, (sum + priorMean * priorVotes) / (count + priorVotes),
+ * which pulls books with few votes towards the prior instead of ranking a single 5 above hundreds of 4s.
+ * The prior is fixed rather than the current mean of all ratings, so a rating moves only the score of its
+ * own book and every change is one O(log n) remove and insert. Besides the ranking of all books there is
+ * one per publisher. Reads walk the skip lists without locking, a book being moved may be seen twice and
+ * only its first occurrence is returned.
+ */
+@Slf4j
+@Component
+public class BookLeaderboard {
+    // Long enough for the events of writes that committed just before a delete
+    private static final long TOMBSTONE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final BooksRepository booksRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final double priorMean;
+    private final int priorVotes;
+    private final Map<Integer, Ranked> books = new ConcurrentHashMap<>();
+    private final Queue<Map.Entry<Integer, Ranked>> tombstones = new ConcurrentLinkedQueue<>();
+    private final ConcurrentSkipListMap<Rank, BookDTO> ranking = new ConcurrentSkipListMap<>();
+    private final Map<Publisher, ConcurrentSkipListMap<Rank, BookDTO>> rankingsByPublisher =
+            new EnumMap<>(Publisher.class);
+    private volatile boolean ready;
+
+    public BookLeaderboard(BooksRepository booksRepository, PlatformTransactionManager transactionManager,
+                           @Value("${books.leaderboard.prior-mean:3.0}") double priorMean,
+                           @Value("${books.leaderboard.prior-votes:10}") int priorVotes) {
+        this.booksRepository = booksRepository;
+        this.transactionManager = transactionManager;
+        this.priorMean = priorMean;
+        this.priorVotes = priorVotes;
+        for (Publisher publisher : Publisher.values()) {
+            this.rankingsByPublisher.put(publisher, new ConcurrentSkipListMap<>());
+        }
+    }
+
+    // Writes committed during the scan are applied by onBooksChanged as usual, the versions decide
+    // whether the scanned row or the event is newer
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        TransactionTemplate transaction = new TransactionTemplate(this.transactionManager);
+        transaction.setReadOnly(true);
+        transaction.executeWithoutResult(status -> {
+            try (Stream<BookDTO> books = this.booksRepository.streamSummaries()) {
+                books.forEach(this::put);
+            }
+        });
+        this.ready = true;
+        this.purgeTombstones();
+        log.info("Built leaderboard of {} books", this.ranking.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooksChanged(BooksChangedEvent event) {
+        event.getSavedBooks().forEach(this::put);
+        event.getDeletedIds().forEach(this::remove);
+        this.purgeTombstones();
+    }
+
+    // Before the first rebuild the ranking is incomplete, so the caller's transaction queries the table instead
+    public List<BookDTO> top(int limit, int minVotes, Publisher publisher) {
+        if (!this.ready) {
+            PageRequest page = PageRequest.of(0, limit);
+            List<Book> books = publisher == null
+                    ? this.booksRepository.findTopRated(minVotes, this.priorMean, this.priorVotes, page)
+                    : this.booksRepository.findTopRatedByPublisher(minVotes, publisher, this.priorMean,
+                            this.priorVotes, page);
+            return books.stream()
+                    .map(book -> BookDTO.of(book, null))
+                    .toList();
+        }
+        ConcurrentSkipListMap<Rank, BookDTO> ranking = this.rankingOf(publisher).orElse(this.ranking);
+        List<BookDTO> top = new ArrayList<>(limit);
+        Set<Integer> seen = new HashSet<>();
+        for (BookDTO book : ranking.values()) {
+            if (book.getRating_count() >= minVotes && seen.add(book.getId())) {
+                top.add(book);
+                if (top.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return top;
+    }
+
+    private double score(int ratingCount, double averageRating) {
+        return (averageRating * ratingCount + this.priorMean * this.priorVotes) / (ratingCount + this.priorVotes);
+    }
+
+    // Events of concurrent transactions can arrive out of commit order, an older version never replaces a newer one
+    private void put(BookDTO book) {
+        Rank rank = new Rank(this.score(book.getRating_count(), book.getAverage_rating()), book.getId());
+        Ranked ranked = new Ranked(rank, book.getVersion() == null ? 0 : book.getVersion(), book.getPublisher(), 0);
+        this.books.compute(book.getId(), (id, current) -> {
+            if (current != null && current.version > ranked.version) {
+                return current;
+            }
+            // Inserting before removing keeps the book visible throughout, an unchanged rank is replaced in place
+            this.ranking.put(rank, book);
+            this.rankingOf(book.getPublisher()).ifPresent(ranking -> ranking.put(rank, book));
+            if (current != null && !current.rank.equals(rank)) {
+                this.ranking.remove(current.rank);
+            }
+            if (current != null && (!current.rank.equals(rank) || current.publisher != book.getPublisher())) {
+                this.rankingOf(current.publisher).ifPresent(ranking -> ranking.remove(current.rank));
+            }
+            return ranked;
+        });
+    }
+
+    // The tombstone stops an event of a write that committed before the delete, or a row read by a running
+    // rebuild, from bringing the book back
+    private void remove(int id) {
+        Ranked tombstone = new Ranked(null, Long.MAX_VALUE, null, System.nanoTime());
+        this.books.compute(id, (key, current) -> {
+            if (current != null && current.rank != null) {
+                this.ranking.remove(current.rank);
+                this.rankingOf(current.publisher).ifPresent(ranking -> ranking.remove(current.rank));
+            }
+            return tombstone;
+        });
+        this.tombstones.add(Map.entry(id, tombstone));
+    }
+
+    // Tombstones are queued in the order they were made, so only the head is ever checked. They are kept for
+    // the whole rebuild, whose scan may still return the deleted rows
+    private synchronized void purgeTombstones() {
+        if (!this.ready) {
+            return;
+        }
+        long now = System.nanoTime();
+        Map.Entry<Integer, Ranked> oldest;
+        while ((oldest = this.tombstones.peek()) != null && now - oldest.getValue().deletedAt > TOMBSTONE_NANOS) {
+            this.tombstones.poll();
+            this.books.remove(oldest.getKey(), oldest.getValue());
+        }
+    }
+
+    private Optional<ConcurrentSkipListMap<Rank, BookDTO>> rankingOf(Publisher publisher) {
+        return publisher == null ? Optional.empty() : Optional.of(this.rankingsByPublisher.get(publisher));
+    }
+
+    // A tombstone has no rank and the highest version
+    @AllArgsConstructor
+    private static class Ranked {
+        private final Rank rank;
+        private final long version;
+        private final Publisher publisher;
+        private final long deletedAt;
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class Rank implements Comparable<Rank> {
+        private final double score;
+        private final int bookId;
+
+        @Override
+        public int compareTo(Rank other) {
+            int byScore = Double.compare(other.score, this.score);
+            return byScore != 0 ? byScore : Integer.compare(this.bookId, other.bookId);
+        }
+    }
+}
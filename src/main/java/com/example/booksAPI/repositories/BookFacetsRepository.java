@@ -0,0 +1,10 @@
+package com.example.booksAPI.repositories;
+
+import com.example.booksAPI.dto.BookFacetsDTO;
+import com.example.booksAPI.entities.Book;
+import org.springframework.data.jpa.domain.Specification;
+
+public interface BookFacetsRepository {
+    // Facet counts of the books matching the specification, for the filters the in-memory indexes can't answer
+    BookFacetsDTO countFacets(Specification<Book> specification);
+}
@@ -0,0 +1,74 @@
+package com.example.booksAPI.repositories;
+
+import com.example.booksAPI.dto.BookFacetsDTO;
+import com.example.booksAPI.entities.Book;
+import com.example.booksAPI.enums.Publisher;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class BookFacetsRepositoryImpl implements BookFacetsRepository {
+    private static final int SCORES = 5;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // One statement grouped by publisher and year, which leaves a few hundred rows however many books match.
+    // Each row also counts the books that received each score, decades and totals are folded from the rows
+    @Override
+    public BookFacetsDTO countFacets(Specification<Book> specification) {
+        CriteriaBuilder cb = this.entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<Book> root = query.from(Book.class);
+        List<Selection<?>> selections = new ArrayList<>(List.of(root.get("publisher"), root.get("publication_year"),
+                cb.count(root)));
+        for (int score = 1; score <= SCORES; score++) {
+            selections.add(cb.sum(cb.<Integer>selectCase()
+                    .when(cb.gt(root.get("score_" + score + "_count"), 0), 1)
+                    .otherwise(0)));
+        }
+        query.multiselect(selections).groupBy(root.get("publisher"), root.get("publication_year"));
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+
+        int total = 0;
+        Map<Publisher, Integer> publishers = new EnumMap<>(Publisher.class);
+        for (Publisher publisher : Publisher.values()) {
+            publishers.put(publisher, 0);
+        }
+        Map<Integer, Integer> decades = new TreeMap<>();
+        int[] scores = new int[SCORES];
+        for (Object[] row : this.entityManager.createQuery(query).getResultList()) {
+            int count = ((Number) row[2]).intValue();
+            total += count;
+            if (row[0] != null) {
+                publishers.merge((Publisher) row[0], count, Integer::sum);
+            }
+            if (row[1] != null) {
+                decades.merge(Math.floorDiv((Integer) row[1], 10) * 10, count, Integer::sum);
+            }
+            for (int score = 0; score < SCORES; score++) {
+                scores[score] += ((Number) row[3 + score]).intValue();
+            }
+        }
+        Map<Integer, Integer> ratings = new LinkedHashMap<>();
+        for (int score = 0; score < SCORES; score++) {
+            ratings.put(score + 1, scores[score]);
+        }
+        return new BookFacetsDTO(total, publishers, new LinkedHashMap<>(decades), ratings);
+    }
+}
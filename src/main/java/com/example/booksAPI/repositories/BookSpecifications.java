@@ -0,0 +1,122 @@
+package com.example.booksAPI.repositories;
+
+import com.example.booksAPI.dto.BookCursor;
+import com.example.booksAPI.entities.Book;
+import com.example.booksAPI.enums.BookSort;
+import com.example.booksAPI.enums.Publisher;
+import jakarta.persistence.criteria.Path;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+public final class BookSpecifications {
+    private BookSpecifications() {
+    }
+
+    public static Specification<Book> idIn(int[] ids) {
+        return (root, query, cb) -> ids.length == 0
+                ? cb.disjunction()
+                : root.get("id").in(Arrays.stream(ids).boxed().toList());
+    }
+
+    public static Specification<Book> titleContains(String title) {
+        return (root, query, cb) -> title == null ? null : cb.like(root.get("title"), "%" + title + "%");
+    }
+
+    // Lowercases both sides like the in-memory indexes, whatever the collation of the column
+    public static Specification<Book> titleContainsIgnoringCase(String title) {
+        return (root, query, cb) -> title == null
+                ? null
+                : cb.like(cb.lower(root.get("title")), "%" + title.toLowerCase(Locale.ROOT) + "%");
+    }
+
+    public static Specification<Book> authorContainsIgnoringCase(String author) {
+        return (root, query, cb) -> author == null
+                ? null
+                : cb.like(cb.lower(root.get("author")), "%" + author.toLowerCase(Locale.ROOT) + "%");
+    }
+
+    public static Specification<Book> publishedIn(Integer year) {
+        return (root, query, cb) -> year == null ? null : cb.equal(root.get("publication_year"), year);
+    }
+
+    public static Specification<Book> publishedBetween(Integer from, Integer to) {
+        return (root, query, cb) -> {
+            Path<Integer> year = root.get("publication_year");
+            if (from != null && to != null) {
+                return from.equals(to) ? cb.equal(year, from) : cb.between(year, from, to);
+            }
+            if (from != null) {
+                return cb.greaterThanOrEqualTo(year, from);
+            }
+            return to == null ? null : cb.lessThanOrEqualTo(year, to);
+        };
+    }
+
+    public static Specification<Book> publishedBy(Collection<Publisher> publishers) {
+        return (root, query, cb) -> {
+            if (publishers == null || publishers.isEmpty()) {
+                return null;
+            }
+            Path<Publisher> publisher = root.get("publisher");
+            return publishers.size() == 1 ? cb.equal(publisher, publishers.iterator().next()) : publisher.in(publishers);
+        };
+    }
+
+    public static Specification<Book> averageRatingAtLeast(Double minRating) {
+        return (root, query, cb) -> minRating == null
+                ? null
+                : cb.greaterThanOrEqualTo(root.get("average_rating"), minRating);
+    }
+
+    // Answered from the score histogram on books, so the ratings table is never joined
+    public static Specification<Book> hasRating(Integer score) {
+        return (root, query, cb) -> score == null ? null : cb.greaterThan(root.get("score_" + score + "_count"), 0);
+    }
+
+    // Applied through Criteria rather than Sort, which would read "publication_year" as a nested path
+    public static Specification<Book> orderedBy(BookSort sort, Sort.Direction direction) {
+        return (root, query, cb) -> {
+            Path<Object> key = root.get(sort.getProperty());
+            Path<Object> id = root.get("id");
+            if (direction == Sort.Direction.ASC) {
+                query.orderBy(sort == BookSort.ID ? List.of(cb.asc(id)) : List.of(cb.asc(key), cb.asc(id)));
+            } else {
+                query.orderBy(sort == BookSort.ID ? List.of(cb.desc(id)) : List.of(cb.desc(key), cb.desc(id)));
+            }
+            return null;
+        };
+    }
+
+    // Seek predicate "(key, id) > (:key, :id)" spelled out so that MySQL turns it into a range scan
+    // over the matching (key, id) composite index instead of skipping rows with OFFSET. Books without
+    // the key sort first ascending and last descending, as NULL does in MySQL and H2.
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Book> after(BookCursor cursor) {
+        return (root, query, cb) -> {
+            if (cursor == null) {
+                return null;
+            }
+            boolean ascending = cursor.getDirection() == Sort.Direction.ASC;
+            Path<Integer> id = root.get("id");
+            var idPredicate = ascending ? cb.greaterThan(id, cursor.getId()) : cb.lessThan(id, cursor.getId());
+            if (cursor.getSort() == BookSort.ID) {
+                return idPredicate;
+            }
+            Path<Comparable> key = root.get(cursor.getSort().getProperty());
+            Comparable value = cursor.getValue();
+            if (value == null) {
+                var nullsAfter = cb.and(cb.isNull(key), idPredicate);
+                return ascending ? cb.or(cb.isNotNull(key), nullsAfter) : nullsAfter;
+            }
+            var keyPredicate = ascending
+                    ? cb.greaterThan(key, value)
+                    : cb.or(cb.lessThan(key, value), cb.isNull(key));
+            return cb.or(keyPredicate, cb.and(cb.equal(key, value), idPredicate));
+        };
+    }
+}
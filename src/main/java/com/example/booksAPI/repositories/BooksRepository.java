@@ -1,16 +1,121 @@
 package com.example.booksAPI.repositories;
 
+import com.example.booksAPI.dto.BookColumnRowDTO;
+import com.example.booksAPI.dto.BookDTO;
+import com.example.booksAPI.dto.BookTextDTO;
+import com.example.booksAPI.dto.RatingAggregateDTO;
 import com.example.booksAPI.entities.Book;
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
+import com.example.booksAPI.enums.Publisher;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface BooksRepository extends JpaRepository<Book, Integer> {
-    @Query("SELECT b FROM Book b LEFT JOIN b.ratings r WHERE (:title IS NULL OR b.title LIKE %:title%) " +
-            "AND (:year IS NULL OR b.publication_year = :year) AND (:author IS NULL OR b.author LIKE %:author%) " +
-            "AND (:rating IS NULL OR r.score = :rating)")
-    List<Book> getFilteredBooks(@Param("title") String title, @Param("year") String year,
-                                @Param("author") String author, @Param("rating") String rating);
+import static org.hibernate.jpa.HibernateHints.*;
+
+public interface BooksRepository extends JpaRepository<Book, Integer>, JpaSpecificationExecutor<Book>,
+        BookFacetsRepository {
+    // Plain parameters rather than SpEL expressions, Spring Data re-renders SpEL queries on every call
+    default int addRatings(RatingAggregateDTO delta) {
+        int[] histogram = delta.getHistogram();
+        return addRatings(delta.getBookId(), delta.getCount(), delta.getSum(),
+                histogram[0], histogram[1], histogram[2], histogram[3], histogram[4], Instant.now());
+    }
+
+    // average_rating comes first: MySQL evaluates SET assignments left to right against already updated columns
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Book b SET " +
+            "b.average_rating = (b.rating_sum + :sum) * 1.0 / (b.rating_count + :count), " +
+            "b.rating_count = b.rating_count + :count, " +
+            "b.rating_sum = b.rating_sum + :sum, " +
+            "b.score_1_count = b.score_1_count + :score1, " +
+            "b.score_2_count = b.score_2_count + :score2, " +
+            "b.score_3_count = b.score_3_count + :score3, " +
+            "b.score_4_count = b.score_4_count + :score4, " +
+            "b.score_5_count = b.score_5_count + :score5, " +
+            "b.version = b.version + 1, " +
+            "b.updated_at = :now " +
+            "WHERE b.id = :id")
+    int addRatings(@Param("id") int id, @Param("count") int count, @Param("sum") long sum,
+                   @Param("score1") int score1, @Param("score2") int score2, @Param("score3") int score3,
+                   @Param("score4") int score4, @Param("score5") int score5, @Param("now") Instant now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Book b SET " +
+            "b.rating_count = (SELECT COUNT(r) FROM Rating r WHERE r.book = b), " +
+            "b.rating_sum = (SELECT COALESCE(SUM(r.score), 0) FROM Rating r WHERE r.book = b), " +
+            "b.average_rating = (SELECT COALESCE(AVG(r.score * 1.0), 0) FROM Rating r WHERE r.book = b), " +
+            "b.score_1_count = (SELECT COUNT(r) FROM Rating r WHERE r.book = b AND r.score = 1), " +
+            "b.score_2_count = (SELECT COUNT(r) FROM Rating r WHERE r.book = b AND r.score = 2), " +
+            "b.score_3_count = (SELECT COUNT(r) FROM Rating r WHERE r.book = b AND r.score = 3), " +
+            "b.score_4_count = (SELECT COUNT(r) FROM Rating r WHERE r.book = b AND r.score = 4), " +
+            "b.score_5_count = (SELECT COUNT(r) FROM Rating r WHERE r.book = b AND r.score = 5), " +
+            "b.version = b.version + 1, " +
+            "b.updated_at = :now " +
+            "WHERE b.id BETWEEN :fromId AND :toId")
+    int recomputeRatingAggregates(@Param("fromId") int fromId, @Param("toId") int toId, @Param("now") Instant now);
+
+    @Query("SELECT b.version FROM Book b WHERE b.id = :id")
+    Optional<Long> findVersion(@Param("id") int id);
+
+    @Query("SELECT COALESCE(MAX(b.id), 0) FROM Book b")
+    int findMaxId();
+
+    @Query("SELECT b.id FROM Book b WHERE b.id IN :ids")
+    List<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
+
+    // Same Bayesian average as BookLeaderboard, for the requests served before it is built
+    @Query("SELECT b FROM Book b " +
+            "WHERE b.rating_count >= :minVotes " +
+            "ORDER BY (b.rating_sum + :priorMean * :priorVotes) / (b.rating_count + :priorVotes) DESC, b.id")
+    List<Book> findTopRated(@Param("minVotes") int minVotes, @Param("priorMean") double priorMean,
+                            @Param("priorVotes") int priorVotes, Pageable pageable);
+
+    @Query("SELECT b FROM Book b " +
+            "WHERE b.rating_count >= :minVotes AND b.publisher = :publisher " +
+            "ORDER BY (b.rating_sum + :priorMean * :priorVotes) / (b.rating_count + :priorVotes) DESC, b.id")
+    List<Book> findTopRatedByPublisher(@Param("minVotes") int minVotes, @Param("publisher") Publisher publisher,
+                                       @Param("priorMean") double priorMean, @Param("priorVotes") int priorVotes,
+                                       Pageable pageable);
+
+    // Forward-only cursor: MySQL needs useCursorFetch=true on the URL for the fetch size to take effect
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT b FROM Book b ORDER BY b.id")
+    Stream<Book> streamAll();
+
+    // Rows for BookLeaderboard as DTOs, so nothing is kept in the persistence context however large the catalog
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT new com.example.booksAPI.dto.BookDTO(b.id, b.title, b.publication_year, b.author, b.publisher, " +
+            "b.rating_count, b.average_rating, b.score_1_count, b.score_2_count, b.score_3_count, b.score_4_count, " +
+            "b.score_5_count, b.version) FROM Book b")
+    Stream<BookDTO> streamSummaries();
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT new com.example.booksAPI.dto.BookTextDTO(b.id, b.title, b.author) FROM Book b")
+    Stream<BookTextDTO> streamTexts();
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT new com.example.booksAPI.dto.BookColumnRowDTO(b.id, b.publisher, b.publication_year, b.author, " +
+            "b.average_rating, b.score_1_count, b.score_2_count, b.score_3_count, b.score_4_count, b.score_5_count) " +
+            "FROM Book b")
+    Stream<BookColumnRowDTO> streamColumnRows();
 }
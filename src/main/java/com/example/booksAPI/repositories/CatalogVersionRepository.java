@@ -0,0 +1,18 @@
+package com.example.booksAPI.repositories;
+
+import com.example.booksAPI.entities.CatalogVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface CatalogVersionRepository extends JpaRepository<CatalogVersion, Integer> {
+    @Query("SELECT c.version FROM CatalogVersion c WHERE c.id = :id")
+    Optional<Long> findVersion(@Param("id") int id);
+
+    @Modifying
+    @Query("UPDATE CatalogVersion c SET c.version = c.version + 1 WHERE c.id = :id")
+    int increment(@Param("id") int id);
+}
@@ -1,7 +1,16 @@
 package com.example.booksAPI.repositories;
 
+import com.example.booksAPI.dto.RatingDTO;
 import com.example.booksAPI.entities.Rating;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface RatingsRepository extends JpaRepository<Rating, Integer> {
+    @Query("SELECT new com.example.booksAPI.dto.RatingDTO(r.book.id, r.id, r.score) FROM Rating r " +
+            "WHERE r.book.id IN :bookIds ORDER BY r.id")
+    List<RatingDTO> findRatingsByBookIds(@Param("bookIds") Collection<Integer> bookIds);
 }
@@ -0,0 +1,105 @@
+package com.example.booksAPI.repositories;
+
+import com.example.booksAPI.dto.BookDTO;
+import com.example.booksAPI.enums.Publisher;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Read side of books on R2DBC. The filters are the same as in BookSpecifications and, like there, only the
+ * supplied ones become predicates over the aggregate columns. Rows are mapped straight to BookDTO as they
+ * arrive, the driver only fetches as many as the subscriber requested.
+ */
+@Repository
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveBooksRepository {
+    private static final String SELECT_BOOKS = "SELECT id, title, publication_year, author, publisher, rating_count, "
+            + "average_rating, score_1_count, score_2_count, score_3_count, score_4_count, score_5_count, version "
+            + "FROM books";
+
+    private final DatabaseClient databaseClient;
+
+    public Flux<BookDTO> findFiltered(int[] ids, String title, String author, Integer year, Integer yearFrom,
+                                      Integer yearTo, Collection<Publisher> publishers, Integer rating,
+                                      Double minRating) {
+        List<String> predicates = new ArrayList<>();
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        if (ids != null) {
+            if (ids.length == 0) {
+                return Flux.empty();
+            }
+            predicates.add("id IN (:ids)");
+            parameters.put("ids", Arrays.stream(ids).boxed().toList());
+        }
+        if (title != null) {
+            predicates.add("title LIKE :title");
+            parameters.put("title", "%" + title + "%");
+        }
+        if (author != null) {
+            // Lowercased on both sides like BookSpecifications.authorContainsIgnoringCase
+            predicates.add("LOWER(author) LIKE :author");
+            parameters.put("author", "%" + author.toLowerCase(Locale.ROOT) + "%");
+        }
+        if (year != null) {
+            predicates.add("publication_year = :year");
+            parameters.put("year", year);
+        }
+        if (yearFrom != null) {
+            predicates.add("publication_year >= :yearFrom");
+            parameters.put("yearFrom", yearFrom);
+        }
+        if (yearTo != null) {
+            predicates.add("publication_year <= :yearTo");
+            parameters.put("yearTo", yearTo);
+        }
+        if (publishers != null && !publishers.isEmpty()) {
+            // Names of enum constants, so they can be inlined: r2dbc-h2 binds every String as a CLOB,
+            // which H2 refuses to compare with the ENUM column
+            predicates.add(publishers.stream()
+                    .map(publisher -> "'" + publisher.name() + "'")
+                    .collect(Collectors.joining(", ", "publisher IN (", ")")));
+        }
+        // Answered from the score histogram on books, so the ratings table is never joined
+        if (rating != null) {
+            predicates.add("score_" + rating + "_count > 0");
+        }
+        if (minRating != null) {
+            predicates.add("average_rating >= :minRating");
+            parameters.put("minRating", minRating);
+        }
+
+        String sql = SELECT_BOOKS + (predicates.isEmpty() ? "" : " WHERE " + String.join(" AND ", predicates))
+                + " ORDER BY id";
+        DatabaseClient.GenericExecuteSpec spec = this.databaseClient.sql(sql);
+        for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+            spec = spec.bind(parameter.getKey(), parameter.getValue());
+        }
+        return spec.map(ReactiveBooksRepository::toDTO).all();
+    }
+
+    private static BookDTO toDTO(Readable row) {
+        String publisher = row.get("publisher", String.class);
+        return new BookDTO(row.get("id", Integer.class), row.get("title", String.class),
+                row.get("publication_year", Integer.class), row.get("author", String.class),
+                publisher == null ? null : Publisher.valueOf(publisher), row.get("rating_count", Integer.class),
+                row.get("average_rating", Double.class),
+                List.of(row.get("score_1_count", Integer.class), row.get("score_2_count", Integer.class),
+                        row.get("score_3_count", Integer.class), row.get("score_4_count", Integer.class),
+                        row.get("score_5_count", Integer.class)),
+                null, row.get("version", Long.class));
+    }
+}
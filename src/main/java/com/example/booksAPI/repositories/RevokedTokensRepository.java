@@ -0,0 +1,21 @@
+package com.example.booksAPI.repositories;
+
+import com.example.booksAPI.entities.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface RevokedTokensRepository extends JpaRepository<RevokedToken, String> {
+    @Query("SELECT r.token_id FROM RevokedToken r WHERE r.expires_at > :now")
+    List<String> findActiveTokenIds(@Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RevokedToken r WHERE r.expires_at <= :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -1,10 +1,30 @@
 package com.example.booksAPI.repositories;
 
+import com.example.booksAPI.dto.TokenCutoffDTO;
 import com.example.booksAPI.entities.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 public interface UsersRepository extends JpaRepository<User, Integer> {
     Optional<User> findByEmail(String email);
+
+    @Query("SELECT new com.example.booksAPI.dto.TokenCutoffDTO(u.id, u.tokens_valid_after) FROM User u " +
+            "WHERE u.tokens_valid_after IS NOT NULL")
+    List<TokenCutoffDTO> findTokenCutoffs();
+
+    @Modifying
+    @Query("UPDATE User u SET u.tokens_valid_after = :validAfter WHERE u.id = :id")
+    int updateTokensValidAfter(@Param("id") int id, @Param("validAfter") Instant validAfter);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :id")
+    int updatePassword(@Param("id") int id, @Param("password") String password);
 }
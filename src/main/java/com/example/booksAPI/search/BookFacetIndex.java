@@ -0,0 +1,94 @@
+package com.example.booksAPI.search;
+
+import com.example.booksAPI.dto.BookFacetsDTO;
+import com.example.booksAPI.enums.Publisher;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Facet counts over the columns of ColumnarCatalog. The catalog selects the books matching the filters chunk
+ * by chunk, and a single pass over each selection vector adds every selected book to the counts of its
+ * publisher, its decade and the scores it has received. No row or entity is read.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookFacetIndex {
+    private static final Publisher[] PUBLISHERS = Publisher.values();
+    private static final int SCORES = 5;
+
+    private final ColumnarCatalog columnarCatalog;
+
+    // ids are the matches of the text filters, or null when there are none. Empty when the catalog can't
+    // answer yet, see ColumnarCatalog.select
+    public Optional<BookFacetsDTO> count(int[] ids, ColumnFilter filter) {
+        Counts counts = new Counts();
+        return this.columnarCatalog.select(filter, ids, counts::add)
+                ? Optional.of(counts.toFacets())
+                : Optional.empty();
+    }
+
+    private static class Counts {
+        private int total;
+        // Shifted by one, slot 0 counts the books without a publisher
+        private final int[] publishers = new int[PUBLISHERS.length + 1];
+        private final int[] scores = new int[SCORES];
+        // Indexed from firstDecade, widened whenever a book falls outside
+        private int firstDecade;
+        private int[] decades = new int[0];
+
+        void add(byte[] selected, byte[] publishers, int[] years, byte[] scores) {
+            for (int slot = 0; slot < selected.length; slot++) {
+                if (selected[slot] == 0) {
+                    continue;
+                }
+                this.total++;
+                this.publishers[publishers[slot] + 1]++;
+                for (int score = 0; score < SCORES; score++) {
+                    this.scores[score] += (scores[slot] >>> score) & 1;
+                }
+                if (years[slot] != ColumnFilter.NO_YEAR) {
+                    this.addDecade(Math.floorDiv(years[slot], 10));
+                }
+            }
+        }
+
+        BookFacetsDTO toFacets() {
+            Map<Publisher, Integer> publishers = new EnumMap<>(Publisher.class);
+            for (Publisher publisher : PUBLISHERS) {
+                publishers.put(publisher, this.publishers[publisher.ordinal() + 1]);
+            }
+            Map<Integer, Integer> decades = new LinkedHashMap<>();
+            for (int decade = 0; decade < this.decades.length; decade++) {
+                if (this.decades[decade] > 0) {
+                    decades.put((this.firstDecade + decade) * 10, this.decades[decade]);
+                }
+            }
+            Map<Integer, Integer> ratings = new LinkedHashMap<>();
+            for (int score = 0; score < SCORES; score++) {
+                ratings.put(score + 1, this.scores[score]);
+            }
+            return new BookFacetsDTO(this.total, publishers, decades, ratings);
+        }
+
+        private void addDecade(int decade) {
+            if (this.decades.length == 0) {
+                this.firstDecade = decade;
+                this.decades = new int[1];
+            } else if (decade < this.firstDecade) {
+                int[] widened = new int[this.decades.length + this.firstDecade - decade];
+                System.arraycopy(this.decades, 0, widened, this.firstDecade - decade, this.decades.length);
+                this.decades = widened;
+                this.firstDecade = decade;
+            } else if (decade - this.firstDecade >= this.decades.length) {
+                this.decades = Arrays.copyOf(this.decades, decade - this.firstDecade + 1);
+            }
+            this.decades[decade - this.firstDecade]++;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.booksAPI.search;
+
+import com.example.booksAPI.dto.BookDTO;
+import com.example.booksAPI.dto.BookTextDTO;
+import com.example.booksAPI.events.BooksChangedEvent;
+import com.example.booksAPI.repositories.BooksRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookSearchIndex {
+    private final BooksRepository booksRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Value("${books.search.max-candidates:10000}")
+    private int maxCandidates;
+
+    private TextFieldIndex titles = new TextFieldIndex();
+    private TextFieldIndex authors = new TextFieldIndex();
+    private List<BooksChangedEvent> changesDuringRebuild;
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        this.lock.writeLock().lock();
+        try {
+            this.changesDuringRebuild = new ArrayList<>();
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        TextFieldIndex newTitles = new TextFieldIndex();
+        TextFieldIndex newAuthors = new TextFieldIndex();
+        TransactionTemplate transaction = new TransactionTemplate(this.transactionManager);
+        transaction.setReadOnly(true);
+        transaction.executeWithoutResult(status -> {
+            try (Stream<BookTextDTO> books = this.booksRepository.streamTexts()) {
+                books.forEach(book -> {
+                    newTitles.put(book.getId(), book.getTitle());
+                    newAuthors.put(book.getId(), book.getAuthor());
+                });
+            }
+        });
+        this.lock.writeLock().lock();
+        try {
+            this.titles = newTitles;
+            this.authors = newAuthors;
+            // Writes committed while the table was being read may be missing from the scan
+            this.changesDuringRebuild.forEach(this::apply);
+            this.changesDuringRebuild = null;
+            this.ready = true;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        log.info("Built search index");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooksChanged(BooksChangedEvent event) {
+        this.lock.writeLock().lock();
+        try {
+            if (this.changesDuringRebuild != null) {
+                this.changesDuringRebuild.add(event);
+            }
+            this.apply(event);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    // Sorted ids of the books whose title and author contain the given texts, or empty when the
+    // index can't answer and the caller has to fall back to LIKE
+    public Optional<int[]> findIds(String title, String author) {
+        boolean hasTitle = title != null && !title.isEmpty();
+        boolean hasAuthor = author != null && !author.isEmpty();
+        if (!this.ready || (!hasTitle && !hasAuthor)) {
+            return Optional.empty();
+        }
+        this.lock.readLock().lock();
+        int[] ids;
+        try {
+            ids = hasTitle ? this.titles.search(title) : null;
+            if (hasAuthor) {
+                int[] authorIds = this.authors.search(author);
+                ids = ids == null ? authorIds : IntPostingList.intersect(ids, authorIds);
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+        return ids.length > this.maxCandidates ? Optional.empty() : Optional.of(ids);
+    }
+
+    private void apply(BooksChangedEvent event) {
+        for (BookDTO book : event.getSavedBooks()) {
+            this.titles.put(book.getId(), book.getTitle());
+            this.authors.put(book.getId(), book.getAuthor());
+        }
+        for (Integer id : event.getDeletedIds()) {
+            this.titles.remove(id);
+            this.authors.remove(id);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.booksAPI.search;
+
+import com.example.booksAPI.enums.Publisher;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+// The filters of /books/filter reduced to what the in-memory columns test: publishers, the score, a year
+// range, a minimum average and, for ColumnarCatalog, a lowercased author substring
+public class ColumnFilter {
+    static final int NO_YEAR = Integer.MIN_VALUE;
+
+    private final String author;
+    private final int minYear;
+    private final int maxYear;
+    private final Set<Publisher> publishers;
+    private final Integer rating;
+    private final double minRating;
+
+    private ColumnFilter(String author, int minYear, int maxYear, Set<Publisher> publishers, Integer rating,
+                         double minRating) {
+        this.author = author;
+        this.minYear = minYear;
+        this.maxYear = maxYear;
+        this.publishers = publishers;
+        this.rating = rating;
+        this.minRating = minRating;
+    }
+
+    public static ColumnFilter of(Integer year, Integer yearFrom, Integer yearTo, Collection<Publisher> publishers,
+                                 Integer rating, Double minRating) {
+        return of(null, year, yearFrom, yearTo, publishers, rating, minRating);
+    }
+
+    public static ColumnFilter of(String author, Integer year, Integer yearFrom, Integer yearTo,
+                                 Collection<Publisher> publishers, Integer rating, Double minRating) {
+        int minYear = NO_YEAR;
+        int maxYear = Integer.MAX_VALUE;
+        if (year != null) {
+            minYear = year;
+            maxYear = year;
+        }
+        if (yearFrom != null) {
+            minYear = Math.max(minYear, yearFrom);
+        }
+        if (yearTo != null) {
+            maxYear = Math.min(maxYear, yearTo);
+        }
+        return new ColumnFilter(author == null || author.isEmpty() ? null : TextFieldIndex.normalize(author),
+                minYear, maxYear, publishers == null || publishers.isEmpty() ? null : EnumSet.copyOf(publishers),
+                rating, minRating == null ? Double.NEGATIVE_INFINITY : minRating);
+    }
+
+    String getAuthor() {
+        return this.author;
+    }
+
+    Set<Publisher> getPublishers() {
+        return this.publishers;
+    }
+
+    Integer getRating() {
+        return this.rating;
+    }
+
+    int getMinYear() {
+        return this.minYear;
+    }
+
+    int getMaxYear() {
+        return this.maxYear;
+    }
+
+    double getMinRating() {
+        return this.minRating;
+    }
+
+    boolean isEmpty() {
+        return this.author == null && this.publishers == null && this.rating == null && !this.hasYearRange()
+                && !this.hasMinRating();
+    }
+
+    boolean hasYearRange() {
+        return this.minYear != NO_YEAR || this.maxYear != Integer.MAX_VALUE;
+    }
+
+    boolean hasMinRating() {
+        return this.minRating != Double.NEGATIVE_INFINITY;
+    }
+}
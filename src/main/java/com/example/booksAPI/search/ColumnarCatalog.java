@@ -0,0 +1,508 @@
+package com.example.booksAPI.search;
+
+import com.example.booksAPI.dto.BookColumnRowDTO;
+import com.example.booksAPI.dto.BookDTO;
+import com.example.booksAPI.enums.Publisher;
+import com.example.booksAPI.events.BooksChangedEvent;
+import com.example.booksAPI.repositories.BooksRepository;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * The columns /books/filter tests, stored column by column in chunks of 4096 book ids: the year as an int,
+ * the publisher ordinal as a byte, the author as a code into a dictionary of lowercased names, the average
+ * rating as a double and the scores present as a bitmask. A filter is a handful of branch-free passes over
+ * the chunk arrays, one per predicate, ANDed into a selection vector whose set slots are the matching ids.
+ * Large catalogs are scanned chunk by chunk on the common fork-join pool. BookFacetIndex counts facets over
+ * the same selection vectors.
+ * Readers work on an immutable snapshot behind a volatile field and never lock. A write copies the chunks
+ * it touches and publishes a new snapshot, so a scan sees every book either before or after a change.
+ */
+@Slf4j
+@Component
+public class ColumnarCatalog {
+    static final int CHUNK_BITS = 12;
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int[] NO_IDS = new int[0];
+    private static final int SCORES = 5;
+    private static final byte NO_PUBLISHER = -1;
+    private static final int NO_AUTHOR = 0;
+    private static final Snapshot EMPTY = new Snapshot(new Chunk[0], new String[]{null}, 1);
+
+    private final BooksRepository booksRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final int maxCandidates;
+    private final int parallelThreshold;
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private volatile Snapshot snapshot = EMPTY;
+    private AuthorDictionary authors = new AuthorDictionary();
+    private List<BooksChangedEvent> changesDuringRebuild;
+    private volatile boolean ready;
+
+    public ColumnarCatalog(BooksRepository booksRepository, PlatformTransactionManager transactionManager,
+                           @Value("${books.search.max-candidates:10000}") int maxCandidates,
+                           @Value("${books.columnar-catalog.parallel-threshold:262144}") int parallelThreshold) {
+        this.booksRepository = booksRepository;
+        this.transactionManager = transactionManager;
+        this.maxCandidates = maxCandidates;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        this.writeLock.lock();
+        try {
+            this.changesDuringRebuild = new ArrayList<>();
+        } finally {
+            this.writeLock.unlock();
+        }
+        AuthorDictionary newAuthors = new AuthorDictionary();
+        TransactionTemplate transaction = new TransactionTemplate(this.transactionManager);
+        transaction.setReadOnly(true);
+        Snapshot newSnapshot = transaction.execute(status -> this.load(newAuthors));
+        this.writeLock.lock();
+        try {
+            this.authors = newAuthors;
+            this.snapshot = newSnapshot;
+            // Replayed for the same reason as in BookSearchIndex, the scan may predate them
+            this.changesDuringRebuild.forEach(this::apply);
+            this.changesDuringRebuild = null;
+            this.ready = true;
+        } finally {
+            this.writeLock.unlock();
+        }
+        log.info("Built columnar catalog of {} chunks", this.snapshot.chunks.length);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooksChanged(BooksChangedEvent event) {
+        this.writeLock.lock();
+        try {
+            if (this.changesDuringRebuild != null) {
+                this.changesDuringRebuild.add(event);
+            }
+            this.apply(event);
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    // Published inside the writing transaction, before the commit that onBooksChanged waits for. Until that
+    // transaction ends its own reads skip the snapshot, which can't contain its changes yet
+    @EventListener
+    public void onBooksChanging(BooksChangedEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.hasResource(this)) {
+            TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ColumnarCatalog.this);
+                }
+            });
+        }
+    }
+
+    // Sorted ids of the books matching the filter, only among the candidates when those are given (the title
+    // matches of the search index). Empty when the catalog isn't built yet, when there is nothing to filter on,
+    // when more than max-candidates books match and a range scan in the database does better than an id list,
+    // or while the calling transaction has uncommitted changes to books
+    public Optional<int[]> findIds(ColumnFilter filter, int[] candidates) {
+        if (!this.ready || (filter.isEmpty() && candidates == null)
+                || TransactionSynchronizationManager.hasResource(this)) {
+            return Optional.empty();
+        }
+        Snapshot snapshot = this.snapshot;
+        Scan scan = new Scan(filter, snapshot);
+        int[] ids;
+        if (scan.matchesNothing()) {
+            ids = NO_IDS;
+        } else if (candidates != null) {
+            ids = scan.filter(candidates);
+        } else if ((long) snapshot.chunks.length * CHUNK_SIZE >= this.parallelThreshold) {
+            ids = concat(IntStream.range(0, snapshot.chunks.length)
+                    .parallel()
+                    .mapToObj(chunk -> scan.scan(chunk))
+                    .toArray(int[][]::new));
+        } else {
+            ids = this.scanSequentially(scan, snapshot.chunks.length);
+        }
+        return ids == null || ids.length > this.maxCandidates ? Optional.empty() : Optional.of(ids);
+    }
+
+    // Hands every chunk holding matches to the consumer with its selection vector, only for the candidates when
+    // those are given. False, without a call to the consumer, when the catalog isn't built yet or while the
+    // calling transaction has uncommitted changes to books, so the caller asks the database instead
+    boolean select(ColumnFilter filter, int[] candidates, SelectionConsumer consumer) {
+        if (!this.ready || TransactionSynchronizationManager.hasResource(this)) {
+            return false;
+        }
+        Snapshot snapshot = this.snapshot;
+        Scan scan = new Scan(filter, snapshot);
+        if (scan.matchesNothing()) {
+            return true;
+        }
+        if (candidates != null) {
+            scan.select(candidates, consumer);
+            return true;
+        }
+        for (int index = 0; index < snapshot.chunks.length; index++) {
+            byte[] selected = scan.select(index);
+            if (selected != null) {
+                Chunk chunk = snapshot.chunks[index];
+                consumer.accept(selected, chunk.publishers, chunk.years, chunk.scores);
+            }
+        }
+        return true;
+    }
+
+    private Snapshot load(AuthorDictionary authors) {
+        Writer writer = new Writer(EMPTY, authors);
+        try (Stream<BookColumnRowDTO> rows = this.booksRepository.streamColumnRows()) {
+            rows.forEach(row -> writer.put(row.getId(), row.getPublisher(), row.getPublication_year(),
+                    row.getAuthor(), row.getAverage_rating(), scores(Arrays.asList(row.getScore_1_count(),
+                            row.getScore_2_count(), row.getScore_3_count(), row.getScore_4_count(),
+                            row.getScore_5_count()))));
+        }
+        return writer.publish();
+    }
+
+    // Stops as soon as the matches exceed max-candidates, the caller won't use them then
+    private int[] scanSequentially(Scan scan, int chunks) {
+        int[][] idsByChunk = new int[chunks][];
+        int count = 0;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            idsByChunk[chunk] = scan.scan(chunk);
+            count += idsByChunk[chunk].length;
+            if (count > this.maxCandidates) {
+                return null;
+            }
+        }
+        return concat(idsByChunk);
+    }
+
+    private void apply(BooksChangedEvent event) {
+        Writer writer = new Writer(this.snapshot, this.authors);
+        for (BookDTO book : event.getSavedBooks()) {
+            writer.put(book.getId(), book.getPublisher(), book.getPublication_year(), book.getAuthor(),
+                    book.getAverage_rating(), scores(book.getRating_histogram()));
+        }
+        for (Integer id : event.getDeletedIds()) {
+            writer.remove(id);
+        }
+        this.snapshot = writer.publish();
+    }
+
+    private static int scores(List<Integer> histogram) {
+        int scores = 0;
+        for (int score = 0; score < SCORES; score++) {
+            Integer count = histogram.get(score);
+            if (count != null && count > 0) {
+                scores |= 1 << score;
+            }
+        }
+        return scores;
+    }
+
+    private static int[] concat(int[][] idsByChunk) {
+        int[] ids = new int[Arrays.stream(idsByChunk).mapToInt(chunk -> chunk.length).sum()];
+        int position = 0;
+        for (int[] chunk : idsByChunk) {
+            System.arraycopy(chunk, 0, ids, position, chunk.length);
+            position += chunk.length;
+        }
+        return ids;
+    }
+
+    // publishers holds the ordinal or -1 for none, years ColumnFilter.NO_YEAR for none and scores a bitmask
+    // of the scores present, bit 0 for 1
+    interface SelectionConsumer {
+        void accept(byte[] selected, byte[] publishers, int[] years, byte[] scores);
+    }
+
+    private static class Chunk {
+        // 1 for a book, 0 for an id without one, so the vector starts as a copy of it
+        private final byte[] live;
+        private final int[] years;
+        private final byte[] publishers;
+        private final int[] authors;
+        private final double[] averageRatings;
+        private final byte[] scores;
+
+        Chunk() {
+            this(new byte[CHUNK_SIZE], new int[CHUNK_SIZE], new byte[CHUNK_SIZE], new int[CHUNK_SIZE],
+                    new double[CHUNK_SIZE], new byte[CHUNK_SIZE]);
+        }
+
+        private Chunk(byte[] live, int[] years, byte[] publishers, int[] authors, double[] averageRatings,
+                      byte[] scores) {
+            this.live = live;
+            this.years = years;
+            this.publishers = publishers;
+            this.authors = authors;
+            this.averageRatings = averageRatings;
+            this.scores = scores;
+        }
+
+        Chunk copy() {
+            return new Chunk(this.live.clone(), this.years.clone(), this.publishers.clone(), this.authors.clone(),
+                    this.averageRatings.clone(), this.scores.clone());
+        }
+    }
+
+    // authors is shared with the writer, which only appends past authorCount, so the first authorCount
+    // names never change for this snapshot
+    @AllArgsConstructor
+    private static class Snapshot {
+        private final Chunk[] chunks;
+        private final String[] authors;
+        private final int authorCount;
+    }
+
+    // Codes are never reused, the names of deleted or renamed books stay until the next rebuild.
+    // Guarded by the write lock
+    private static class AuthorDictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private String[] names = new String[]{null};
+        private int count = 1;
+
+        int codeOf(String author) {
+            if (author == null) {
+                return NO_AUTHOR;
+            }
+            return this.codes.computeIfAbsent(TextFieldIndex.normalize(author), name -> {
+                if (this.count == this.names.length) {
+                    // Snapshots keep the old array, a longer one is only seen by the next
+                    this.names = Arrays.copyOf(this.names, this.count * 2);
+                }
+                this.names[this.count] = name;
+                return this.count++;
+            });
+        }
+    }
+
+    // Copy on write: a chunk of the previous snapshot is copied the first time this writer touches it,
+    // later changes to it in the same batch go to the copy
+    private static class Writer {
+        private final AuthorDictionary authors;
+        private Chunk[] chunks;
+        private boolean[] copied;
+
+        Writer(Snapshot snapshot, AuthorDictionary authors) {
+            this.authors = authors;
+            this.chunks = snapshot.chunks.clone();
+            this.copied = new boolean[this.chunks.length];
+        }
+
+        void put(int id, Publisher publisher, Integer year, String author, Double averageRating, int scores) {
+            Chunk chunk = this.writableChunk(id >>> CHUNK_BITS);
+            int slot = id & (CHUNK_SIZE - 1);
+            chunk.live[slot] = 1;
+            chunk.years[slot] = year == null ? ColumnFilter.NO_YEAR : year;
+            chunk.publishers[slot] = publisher == null ? NO_PUBLISHER : (byte) publisher.ordinal();
+            chunk.authors[slot] = this.authors.codeOf(author);
+            chunk.averageRatings[slot] = averageRating == null ? 0 : averageRating;
+            chunk.scores[slot] = (byte) scores;
+        }
+
+        void remove(int id) {
+            int index = id >>> CHUNK_BITS;
+            if (index < this.chunks.length && this.chunks[index] != null) {
+                this.writableChunk(index).live[id & (CHUNK_SIZE - 1)] = 0;
+            }
+        }
+
+        Snapshot publish() {
+            return new Snapshot(this.chunks, this.authors.names, this.authors.count);
+        }
+
+        private Chunk writableChunk(int index) {
+            if (index >= this.chunks.length) {
+                this.chunks = Arrays.copyOf(this.chunks, index + 1);
+                this.copied = Arrays.copyOf(this.copied, index + 1);
+            }
+            if (!this.copied[index]) {
+                this.chunks[index] = this.chunks[index] == null ? new Chunk() : this.chunks[index].copy();
+                this.copied[index] = true;
+            }
+            return this.chunks[index];
+        }
+    }
+
+    // One filter compiled against a snapshot: the year range as an unsigned offset from its lower bound,
+    // lookup tables for the publishers and the author codes and a score shift
+    private static class Scan {
+        private final Chunk[] chunks;
+        private final boolean hasYearRange;
+        private final boolean emptyYearRange;
+        private final int minYear;
+        private final long yearSpan;
+        private final byte[] publishers;
+        private final boolean hasRating;
+        private final int scoreShift;
+        private final boolean hasMinRating;
+        private final double minRating;
+        private final byte[] authors;
+
+        Scan(ColumnFilter filter, Snapshot snapshot) {
+            this.chunks = snapshot.chunks;
+            this.hasYearRange = filter.hasYearRange();
+            // NO_YEAR lies below every lower bound and so never matches a range
+            this.minYear = Math.max(filter.getMinYear(), ColumnFilter.NO_YEAR + 1);
+            this.emptyYearRange = filter.getMaxYear() < this.minYear;
+            this.yearSpan = Integer.toUnsignedLong(filter.getMaxYear() - this.minYear);
+            this.publishers = filter.getPublishers() == null ? null : new byte[Publisher.values().length + 1];
+            if (filter.getPublishers() != null) {
+                filter.getPublishers().forEach(publisher -> this.publishers[publisher.ordinal() + 1] = 1);
+            }
+            this.hasRating = filter.getRating() != null;
+            this.scoreShift = this.hasRating ? filter.getRating() - 1 : 0;
+            this.hasMinRating = filter.hasMinRating();
+            this.minRating = filter.getMinRating();
+            if (filter.getAuthor() == null) {
+                this.authors = null;
+            } else {
+                this.authors = new byte[snapshot.authorCount];
+                for (int code = NO_AUTHOR + 1; code < snapshot.authorCount; code++) {
+                    this.authors[code] = (byte) (snapshot.authors[code].contains(filter.getAuthor()) ? 1 : 0);
+                }
+            }
+        }
+
+        boolean matchesNothing() {
+            return this.emptyYearRange;
+        }
+
+        int[] scan(int index) {
+            byte[] selected = this.select(index);
+            if (selected == null) {
+                return NO_IDS;
+            }
+            int count = 0;
+            int last = 0;
+            for (int slot = 0; slot < CHUNK_SIZE; slot++) {
+                count += selected[slot];
+                last = selected[slot] != 0 ? slot : last;
+            }
+            if (count == 0) {
+                return NO_IDS;
+            }
+            // Every slot is written and only the selected ones advance, up to the last there is room for
+            int[] ids = new int[count];
+            int base = index << CHUNK_BITS;
+            for (int slot = 0, position = 0; slot <= last; slot++) {
+                ids[position] = base + slot;
+                position += selected[slot];
+            }
+            return ids;
+        }
+
+        // 1 in the slots of the matching books, null for a chunk without any book
+        byte[] select(int index) {
+            Chunk chunk = this.chunks[index];
+            if (chunk == null) {
+                return null;
+            }
+            byte[] selected = chunk.live.clone();
+            if (this.hasYearRange) {
+                for (int slot = 0; slot < CHUNK_SIZE; slot++) {
+                    selected[slot] &= this.inYearRange(chunk.years[slot]);
+                }
+            }
+            if (this.publishers != null) {
+                for (int slot = 0; slot < CHUNK_SIZE; slot++) {
+                    selected[slot] &= this.publishers[chunk.publishers[slot] + 1];
+                }
+            }
+            if (this.hasRating) {
+                for (int slot = 0; slot < CHUNK_SIZE; slot++) {
+                    selected[slot] &= this.hasScore(chunk.scores[slot]);
+                }
+            }
+            if (this.hasMinRating) {
+                for (int slot = 0; slot < CHUNK_SIZE; slot++) {
+                    selected[slot] &= this.reachesMinRating(chunk.averageRatings[slot]);
+                }
+            }
+            if (this.authors != null) {
+                for (int slot = 0; slot < CHUNK_SIZE; slot++) {
+                    selected[slot] &= this.authors[chunk.authors[slot]];
+                }
+            }
+            return selected;
+        }
+
+        // The predicates return 1 or 0 from arithmetic rather than comparisons, so the passes have no branches.
+        // Years are compared unsigned, a year below the range wraps around past its end
+        private int inYearRange(int year) {
+            return (int) ((this.yearSpan - Integer.toUnsignedLong(year - this.minYear)) >>> 63) ^ 1;
+        }
+
+        private int hasScore(byte scores) {
+            return (scores >>> this.scoreShift) & 1;
+        }
+
+        // The sign bit of the difference, +0.0 when the average equals the minimum
+        private int reachesMinRating(double averageRating) {
+            return (int) (~Double.doubleToRawLongBits(averageRating - this.minRating) >>> 63);
+        }
+
+        // Few candidates, so each one is tested on its own instead of scanning whole chunks
+        int[] filter(int[] candidates) {
+            return Arrays.stream(candidates).filter(this::matches).toArray();
+        }
+
+        // The sorted candidates grouped by chunk, one selection vector per chunk they fall into
+        void select(int[] candidates, SelectionConsumer consumer) {
+            int position = 0;
+            while (position < candidates.length) {
+                int index = candidates[position] >>> CHUNK_BITS;
+                byte[] selected = new byte[CHUNK_SIZE];
+                for (; position < candidates.length && candidates[position] >>> CHUNK_BITS == index; position++) {
+                    int id = candidates[position];
+                    selected[id & (CHUNK_SIZE - 1)] = (byte) (this.matches(id) ? 1 : 0);
+                }
+                if (index < this.chunks.length && this.chunks[index] != null) {
+                    Chunk chunk = this.chunks[index];
+                    consumer.accept(selected, chunk.publishers, chunk.years, chunk.scores);
+                }
+            }
+        }
+
+        private boolean matches(int id) {
+            int index = id >>> CHUNK_BITS;
+            if (index >= this.chunks.length || this.chunks[index] == null) {
+                return false;
+            }
+            Chunk chunk = this.chunks[index];
+            int slot = id & (CHUNK_SIZE - 1);
+            return chunk.live[slot] != 0
+                    && (!this.hasYearRange
+                            || this.inYearRange(chunk.years[slot]) != 0)
+                    && (this.publishers == null || this.publishers[chunk.publishers[slot] + 1] != 0)
+                    && (!this.hasRating || this.hasScore(chunk.scores[slot]) != 0)
+                    && (!this.hasMinRating || this.reachesMinRating(chunk.averageRatings[slot]) != 0)
+                    && (this.authors == null || this.authors[chunk.authors[slot]] != 0);
+        }
+    }
+}
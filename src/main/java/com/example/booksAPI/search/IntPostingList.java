@@ -0,0 +1,74 @@
+package com.example.booksAPI.search;
+
+import java.util.Arrays;
+
+// Sorted, duplicate-free list of book ids backed by a primitive array
+class IntPostingList {
+    private int[] ids = new int[4];
+    private int size;
+
+    int size() {
+        return this.size;
+    }
+
+    void add(int id) {
+        if (this.size == 0 || this.ids[this.size - 1] < id) {
+            ensureCapacity();
+            this.ids[this.size++] = id;
+            return;
+        }
+        int position = Arrays.binarySearch(this.ids, 0, this.size, id);
+        if (position >= 0) {
+            return;
+        }
+        int insertAt = -position - 1;
+        ensureCapacity();
+        System.arraycopy(this.ids, insertAt, this.ids, insertAt + 1, this.size - insertAt);
+        this.ids[insertAt] = id;
+        this.size++;
+    }
+
+    void remove(int id) {
+        int position = Arrays.binarySearch(this.ids, 0, this.size, id);
+        if (position < 0) {
+            return;
+        }
+        System.arraycopy(this.ids, position + 1, this.ids, position, this.size - position - 1);
+        this.size--;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(this.ids, this.size);
+    }
+
+    int[] intersect(int[] candidates) {
+        return intersect(candidates, candidates.length, this.ids, this.size);
+    }
+
+    static int[] intersect(int[] left, int[] right) {
+        return intersect(left, left.length, right, right.length);
+    }
+
+    private void ensureCapacity() {
+        if (this.size == this.ids.length) {
+            this.ids = Arrays.copyOf(this.ids, this.ids.length * 2);
+        }
+    }
+
+    private static int[] intersect(int[] left, int leftSize, int[] right, int rightSize) {
+        int[] result = new int[Math.min(leftSize, rightSize)];
+        int i = 0, j = 0, k = 0;
+        while (i < leftSize && j < rightSize) {
+            if (left[i] < right[j]) {
+                i++;
+            } else if (left[i] > right[j]) {
+                j++;
+            } else {
+                result[k++] = left[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, k);
+    }
+}
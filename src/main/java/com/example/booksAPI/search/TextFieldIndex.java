@@ -0,0 +1,94 @@
+package com.example.booksAPI.search;
+
+import java.util.*;
+
+// Postings of every 1-, 2- and 3-gram of one text column, whitespace included, so a query of any length is
+// answered from the postings without scanning the dictionary or the values. Not thread-safe, BookSearchIndex
+// guards it.
+class TextFieldIndex {
+    static final int GRAM_LENGTH = 3;
+    private static final int[] NO_IDS = new int[0];
+
+    private final Map<String, IntPostingList> grams = new HashMap<>();
+    private final Map<Integer, String> values = new HashMap<>();
+
+    static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    void put(int id, String text) {
+        remove(id);
+        if (text == null) {
+            return;
+        }
+        String value = normalize(text);
+        this.values.put(id, value);
+        gramsOf(value).forEach(gram -> this.grams.computeIfAbsent(gram, key -> new IntPostingList()).add(id));
+    }
+
+    void remove(int id) {
+        String value = this.values.remove(id);
+        if (value == null) {
+            return;
+        }
+        gramsOf(value).forEach(gram -> removePosting(this.grams, gram, id));
+    }
+
+    int[] search(String query) {
+        String value = normalize(query);
+        if (value.length() >= GRAM_LENGTH) {
+            return searchGrams(value);
+        }
+        // A shorter query is a gram itself, its postings are exactly the values containing it
+        IntPostingList posting = this.grams.get(value);
+        return posting == null ? NO_IDS : posting.toArray();
+    }
+
+    // Intersects the postings of every trigram, rarest first. Sharing all trigrams doesn't guarantee
+    // a substring match, so the survivors are checked against the stored value.
+    private int[] searchGrams(String value) {
+        List<IntPostingList> postings = new ArrayList<>();
+        for (String gram : trigramsOf(value)) {
+            IntPostingList posting = this.grams.get(gram);
+            if (posting == null) {
+                return NO_IDS;
+            }
+            postings.add(posting);
+        }
+        postings.sort(Comparator.comparingInt(IntPostingList::size));
+        int[] candidates = postings.getFirst().toArray();
+        for (int i = 1; i < postings.size() && candidates.length > 0; i++) {
+            candidates = postings.get(i).intersect(candidates);
+        }
+        return Arrays.stream(candidates).filter(id -> this.values.get(id).contains(value)).toArray();
+    }
+
+    private static void removePosting(Map<String, IntPostingList> postings, String key, int id) {
+        IntPostingList posting = postings.get(key);
+        if (posting == null) {
+            return;
+        }
+        posting.remove(id);
+        if (posting.size() == 0) {
+            postings.remove(key);
+        }
+    }
+
+    private static Set<String> gramsOf(String value) {
+        Set<String> result = new HashSet<>();
+        for (int length = 1; length <= GRAM_LENGTH; length++) {
+            for (int i = 0; i + length <= value.length(); i++) {
+                result.add(value.substring(i, i + length));
+            }
+        }
+        return result;
+    }
+
+    private static Set<String> trigramsOf(String value) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= value.length(); i++) {
+            result.add(value.substring(i, i + GRAM_LENGTH));
+        }
+        return result;
+    }
+}
@@ -1,19 +1,28 @@
 package com.example.booksAPI.services;
 
+import com.example.booksAPI.auth.PasswordHashingExecutor;
+import com.example.booksAPI.auth.TokenDenyList;
 import com.example.booksAPI.dto.LoginSuccessResponse;
 import com.example.booksAPI.dto.LoginUserDTO;
 import com.example.booksAPI.dto.RegisterUserDTO;
 import com.example.booksAPI.dto.SuccessResponse;
+import com.example.booksAPI.dto.VerifiedToken;
 import com.example.booksAPI.entities.User;
 import com.example.booksAPI.exceptions.BadRequestException;
+import com.example.booksAPI.exceptions.ResourceNotFoundException;
 import com.example.booksAPI.repositories.UsersRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.CompletableFuture;
+
 @RequiredArgsConstructor
 @Service
 public class AuthService {
@@ -21,28 +30,57 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
+    private final TokenDenyList tokenDenyList;
+    private final PasswordHashingExecutor passwordHashingExecutor;
 
-    public ResponseEntity<SuccessResponse> register(RegisterUserDTO registerUserDTO) {
+    public CompletableFuture<ResponseEntity<SuccessResponse>> register(RegisterUserDTO registerUserDTO) {
         User foundUser = usersRepository.findByEmail(registerUserDTO.getEmail()).orElse(null);
         if (foundUser != null) {
             throw new BadRequestException("User already exists");
         }
-        User user = new User();
-        user.setEmail(registerUserDTO.getEmail());
-        user.setPassword(passwordEncoder.encode(registerUserDTO.getPassword()));
-        usersRepository.save(user);
-        return ResponseEntity.ok(new SuccessResponse("User registered successfully"));
+        return passwordHashingExecutor.submit(() -> {
+            User user = new User();
+            user.setEmail(registerUserDTO.getEmail());
+            user.setPassword(passwordEncoder.encode(registerUserDTO.getPassword()));
+            usersRepository.save(user);
+            return ResponseEntity.ok(new SuccessResponse("User registered successfully"));
+        });
+    }
+
+    public CompletableFuture<ResponseEntity<LoginSuccessResponse>> login(LoginUserDTO loginUserDTO) {
+        return passwordHashingExecutor.submit(() -> {
+            Authentication authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(
+                            loginUserDTO.getEmail(),
+                            loginUserDTO.getPassword()
+                    )
+            );
+            String token = jwtService.generateToken((User) authentication.getPrincipal());
+            return ResponseEntity.ok(new LoginSuccessResponse(token));
+        });
+    }
+
+    public ResponseEntity<SuccessResponse> logout(Authentication authentication) {
+        this.tokenDenyList.revoke(revocableToken(authentication));
+        return ResponseEntity.ok(new SuccessResponse("User logged out successfully"));
+    }
+
+    public ResponseEntity<SuccessResponse> logoutEverywhere(Authentication authentication) {
+        VerifiedToken token = revocableToken(authentication);
+        User user = usersRepository.findByEmail(token.getSubject())
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        // Issue times have second precision, the current token is revoked explicitly in case
+        // it was issued within the same second
+        this.tokenDenyList.revokeIssuedBefore(user.getId(), Instant.now().truncatedTo(ChronoUnit.SECONDS));
+        this.tokenDenyList.revoke(token);
+        return ResponseEntity.ok(new SuccessResponse("User logged out from all devices successfully"));
     }
 
-    public ResponseEntity<LoginSuccessResponse> login(LoginUserDTO loginUserDTO) {
-        authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        loginUserDTO.getEmail(),
-                        loginUserDTO.getPassword()
-                )
-        );
-        User user = usersRepository.findByEmail(loginUserDTO.getEmail()).orElseThrow();
-        String token = jwtService.generateToken(user);
-        return ResponseEntity.ok(new LoginSuccessResponse(token));
+    private VerifiedToken revocableToken(Authentication authentication) {
+        if (authentication == null || !(authentication.getCredentials() instanceof VerifiedToken token)
+                || token.getTokenId() == null) {
+            throw new BadRequestException("Token can't be revoked");
+        }
+        return token;
     }
 }
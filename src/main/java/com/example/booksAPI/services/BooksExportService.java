@@ -0,0 +1,55 @@
+package com.example.booksAPI.services;
+
+import com.example.booksAPI.entities.Book;
+import com.example.booksAPI.repositories.BooksRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+@Service
+public class BooksExportService {
+    private static final int DETACH_INTERVAL = 1000;
+
+    private final BooksRepository booksRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(readOnly = true)
+    public void exportBooks(OutputStream out) throws IOException {
+        try (Stream<Book> books = this.booksRepository.streamAll();
+             JsonGenerator generator = this.objectMapper.getFactory().createGenerator(out)
+                     .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            Iterator<Book> iterator = books.iterator();
+            int written = 0;
+            while (iterator.hasNext()) {
+                writeBook(generator, iterator.next());
+                if (++written % DETACH_INTERVAL == 0) {
+                    generator.flush();
+                    this.entityManager.clear();
+                }
+            }
+        }
+    }
+
+    private static void writeBook(JsonGenerator generator, Book book) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", book.getId());
+        generator.writeStringField("title", book.getTitle());
+        generator.writeObjectField("publication_year", book.getPublication_year());
+        generator.writeStringField("author", book.getAuthor());
+        generator.writeStringField("publisher", book.getPublisher() == null ? null : book.getPublisher().name());
+        generator.writeNumberField("rating_count", book.getRating_count());
+        generator.writeNumberField("average_rating", book.getAverage_rating());
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.booksAPI.services;
+
+import com.example.booksAPI.dto.BookDTO;
+import com.example.booksAPI.dto.ImportBookDTO;
+import com.example.booksAPI.dto.ImportErrorDTO;
+import com.example.booksAPI.dto.ImportResultDTO;
+import com.example.booksAPI.entities.Book;
+import com.example.booksAPI.entities.Rating;
+import com.example.booksAPI.enums.ImportFormat;
+import com.example.booksAPI.enums.Publisher;
+import com.example.booksAPI.events.BooksChangedEvent;
+import com.example.booksAPI.exceptions.BadRequestException;
+import com.example.booksAPI.repositories.BooksRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class BooksImportService {
+    private static final List<String> REQUIRED_CSV_COLUMNS = List.of("title", "year", "author", "publisher");
+    private static final String RATINGS_CSV_COLUMN = "ratings";
+
+    private final BooksRepository booksRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    @Value("${books.import.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${books.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    // Reads the body line by line and commits every chunk on its own, so neither the upload nor the
+    // persistence context ever holds more than one chunk of books. With open-in-view every chunk shares the
+    // request's EntityManager, which is why commitChunk clears it
+    public ImportResultDTO importBooks(InputStream body, ImportFormat format) throws IOException {
+        ImportResultDTO result = new ImportResultDTO(0, 0, false, new ArrayList<>());
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        List<Book> chunk = new ArrayList<>(this.chunkSize);
+        List<String> csvColumns = null;
+        long firstChunkLine = 0;
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (format == ImportFormat.CSV && csvColumns == null) {
+                csvColumns = parseCsvHeader(line);
+                continue;
+            }
+            try {
+                ImportBookDTO record = format == ImportFormat.CSV
+                        ? toRecord(csvColumns, parseCsvLine(line))
+                        : this.objectMapper.readValue(line, ImportBookDTO.class);
+                validate(record);
+                if (chunk.isEmpty()) {
+                    firstChunkLine = lineNumber;
+                }
+                chunk.add(toBook(record));
+            } catch (JsonProcessingException ex) {
+                result.setFailed(result.getFailed() + 1);
+                addError(result, lineNumber, "invalid JSON: " + ex.getOriginalMessage());
+            } catch (IllegalArgumentException ex) {
+                result.setFailed(result.getFailed() + 1);
+                addError(result, lineNumber, ex.getMessage());
+            }
+            if (chunk.size() >= this.chunkSize) {
+                commitChunk(chunk, result, firstChunkLine, lineNumber);
+            }
+        }
+        if (format == ImportFormat.CSV && csvColumns == null) {
+            throw new BadRequestException("CSV header is missing");
+        }
+        if (!chunk.isEmpty()) {
+            commitChunk(chunk, result, firstChunkLine, lineNumber);
+        }
+        log.info("Imported {} books, {} records failed", result.getImported(), result.getFailed());
+        return result;
+    }
+
+    private void commitChunk(List<Book> chunk, ImportResultDTO result, long firstLine, long lastLine) {
+        try {
+            this.transactionTemplate.executeWithoutResult(status -> {
+                List<BookDTO> saved = this.booksRepository.saveAll(chunk).stream()
+                        .map(book -> BookDTO.of(book, null))
+                        .toList();
+                this.eventPublisher.publishEvent(new BooksChangedEvent(saved, List.of()));
+                // Flushed through the repository, so a failing insert still surfaces as a DataAccessException
+                this.booksRepository.flush();
+                this.entityManager.clear();
+            });
+            result.setImported(result.getImported() + chunk.size());
+        } catch (DataAccessException ex) {
+            // Drops whatever the failed flush left behind, the next chunk starts from an empty session
+            this.entityManager.clear();
+            log.warn("Import chunk for lines {}-{} failed", firstLine, lastLine, ex);
+            result.setFailed(result.getFailed() + chunk.size());
+            addError(result, firstLine, "records on lines " + firstLine + "-" + lastLine + " could not be saved");
+        }
+        chunk.clear();
+    }
+
+    private void addError(ImportResultDTO result, long line, String message) {
+        if (result.getErrors().size() < this.maxReportedErrors) {
+            result.getErrors().add(new ImportErrorDTO(line, message));
+        } else {
+            result.setErrorsTruncated(true);
+        }
+    }
+
+    private void validate(ImportBookDTO record) {
+        // A line of null parses into no record at all
+        if (record == null) {
+            throw new IllegalArgumentException("empty record");
+        }
+        if (record.getRatings() == null) {
+            record.setRatings(new ArrayList<>());
+        }
+        Set<ConstraintViolation<ImportBookDTO>> violations = this.validator.validate(record);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+    }
+
+    // Ratings of a new book are known up front, so the aggregates are written with the insert itself
+    private static Book toBook(ImportBookDTO record) {
+        Book book = new Book();
+        book.setTitle(record.getTitle());
+        book.setPublication_year(Integer.parseInt(record.getYear()));
+        book.setAuthor(record.getAuthor());
+        book.setPublisher(Publisher.valueOf(record.getPublisher()));
+        book.setRatings(new ArrayList<>(record.getRatings().size()));
+        int[] histogram = new int[5];
+        long sum = 0;
+        for (Integer score : record.getRatings()) {
+            Rating rating = new Rating();
+            rating.setScore(score);
+            rating.setBook(book);
+            book.getRatings().add(rating);
+            histogram[score - 1]++;
+            sum += score;
+        }
+        int count = record.getRatings().size();
+        book.setRating_count(count);
+        book.setRating_sum(sum);
+        book.setAverage_rating(count == 0 ? 0.0 : (double) sum / count);
+        book.setScore_1_count(histogram[0]);
+        book.setScore_2_count(histogram[1]);
+        book.setScore_3_count(histogram[2]);
+        book.setScore_4_count(histogram[3]);
+        book.setScore_5_count(histogram[4]);
+        return book;
+    }
+
+    private static List<String> parseCsvHeader(String line) {
+        List<String> columns = parseCsvLine(line).stream()
+                .map(name -> name.strip().toLowerCase(Locale.ROOT))
+                .toList();
+        List<String> missing = REQUIRED_CSV_COLUMNS.stream().filter(name -> !columns.contains(name)).toList();
+        if (!missing.isEmpty()) {
+            throw new BadRequestException("CSV header is missing columns: " + String.join(", ", missing));
+        }
+        return columns;
+    }
+
+    private static ImportBookDTO toRecord(List<String> columns, List<String> fields) {
+        if (fields.size() != columns.size()) {
+            throw new IllegalArgumentException("expected " + columns.size() + " fields but found " + fields.size());
+        }
+        ImportBookDTO record = new ImportBookDTO();
+        record.setTitle(fields.get(columns.indexOf("title")));
+        record.setYear(fields.get(columns.indexOf("year")));
+        record.setAuthor(fields.get(columns.indexOf("author")));
+        record.setPublisher(fields.get(columns.indexOf("publisher")));
+        int ratingsColumn = columns.indexOf(RATINGS_CSV_COLUMN);
+        if (ratingsColumn >= 0 && !fields.get(ratingsColumn).isBlank()) {
+            for (String score : fields.get(ratingsColumn).split(";")) {
+                try {
+                    record.getRatings().add(Integer.parseInt(score.strip()));
+                } catch (NumberFormatException ex) {
+                    throw new IllegalArgumentException("ratings: must be scores separated by ';'");
+                }
+            }
+        }
+        return record;
+    }
+
+    // RFC 4180 fields on a single line: commas inside double quotes and "" as an escaped quote
+    private static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
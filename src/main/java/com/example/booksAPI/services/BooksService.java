@@ -1,22 +1,34 @@
 package com.example.booksAPI.services;
 
+import com.example.booksAPI.config.CacheConfig;
 import com.example.booksAPI.dto.*;
 import com.example.booksAPI.entities.Book;
 import com.example.booksAPI.entities.Rating;
+import com.example.booksAPI.enums.BookSort;
 import com.example.booksAPI.enums.Publisher;
 import com.example.booksAPI.exceptions.BadRequestException;
+import com.example.booksAPI.events.BooksChangedEvent;
 import com.example.booksAPI.exceptions.ResourceNotFoundException;
 import com.example.booksAPI.repositories.BooksRepository;
+import com.example.booksAPI.ranking.BookLeaderboard;
 import com.example.booksAPI.repositories.RatingsRepository;
+import com.example.booksAPI.search.BookFacetIndex;
+import com.example.booksAPI.search.BookSearchIndex;
+import com.example.booksAPI.search.ColumnFilter;
+import com.example.booksAPI.search.ColumnarCatalog;
 import lombok.AllArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import static java.util.stream.Collectors.toMap;
+import static com.example.booksAPI.repositories.BookSpecifications.*;
 
 @AllArgsConstructor
 @Service
@@ -24,50 +36,220 @@ public class BooksService {
 
     private BooksRepository booksRepository;
     private RatingsRepository ratingsRepository;
+    private BookSearchIndex bookSearchIndex;
+    private BookFacetIndex bookFacetIndex;
+    private BookLeaderboard bookLeaderboard;
+    private ColumnarCatalog columnarCatalog;
+    private ApplicationEventPublisher eventPublisher;
 
-    public List<Book> getAllBooks() {
-        return this.booksRepository.findAll();
+    @Transactional(readOnly = true)
+    public BooksPage getAllBooks(PageRequestDTO page, boolean includeRatings) {
+        return this.findPage(Specification.where(null), page, includeRatings);
     }
 
-    public List<Book> getFilteredBooks(String title, String year, String author, String rating) {
-        return this.booksRepository.getFilteredBooks(title, year, author, rating);
+    // Only the supplied filters become predicates and ratings are matched on the aggregate columns of books,
+    // so the statement never joins ratings and stays a plain range scan over one of the composite indexes.
+    // When the columnar catalog resolves the filters to few enough ids the statement reads those by primary
+    // key instead, keeping the column predicates as a recheck against a snapshot that lags the commit
+    @Transactional(readOnly = true)
+    public BooksPage getFilteredBooks(BookFilterDTO filter, PageRequestDTO page, boolean includeRatings) {
+        Integer year = parseInteger(filter.getYear());
+        Integer yearFrom = parseInteger(filter.getYearFrom());
+        Integer yearTo = parseInteger(filter.getYearTo());
+        checkYearRange(yearFrom, yearTo);
+        List<Publisher> publishers = publishersOf(filter);
+        Integer rating = parseInteger(filter.getRating());
+        Double minRating = filter.getMinRating() == null ? null : Double.valueOf(filter.getMinRating());
+        Optional<int[]> titleIds = this.bookSearchIndex.findIds(filter.getTitle(), null);
+        Optional<int[]> columnIds = this.columnarCatalog.findIds(
+                ColumnFilter.of(filter.getAuthor(), year, yearFrom, yearTo, publishers, rating, minRating),
+                titleIds.orElse(null));
+        Specification<Book> specification = columnIds
+                .map(ids -> Specification.where(idIn(ids))
+                        .and(titleContains(titleIds.isPresent() ? null : filter.getTitle()))
+                        .and(authorContainsIgnoringCase(filter.getAuthor())))
+                .orElseGet(() -> (filter.getAuthor() == null
+                        ? titleIds
+                        : this.bookSearchIndex.findIds(filter.getTitle(), filter.getAuthor()))
+                        .map(ids -> Specification.where(idIn(ids))
+                                .and(titleContainsIgnoringCase(filter.getTitle()))
+                                .and(authorContainsIgnoringCase(filter.getAuthor())))
+                        .orElseGet(() -> Specification.where(titleContains(filter.getTitle()))
+                                .and(authorContainsIgnoringCase(filter.getAuthor()))))
+                .and(columnFilters(year, yearFrom, yearTo, publishers, rating, minRating));
+        return this.findPage(specification, page, includeRatings);
     }
 
-    public Book getBookByID(int id) {
-       return this.booksRepository.findById(id)
-               .orElseThrow(() -> new ResourceNotFoundException("Book doesn't exist"));
+    // Same filters as getFilteredBooks, counted over the columnar catalog in a single pass. Text filters the
+    // search index can't answer, and requests the catalog can't answer yet, are counted by a grouped query
+    // with the predicates of getFilteredBooks
+    @Transactional(readOnly = true)
+    public BookFacetsDTO getBookFacets(BookFilterDTO filter) {
+        Integer year = parseInteger(filter.getYear());
+        Integer yearFrom = parseInteger(filter.getYearFrom());
+        Integer yearTo = parseInteger(filter.getYearTo());
+        checkYearRange(yearFrom, yearTo);
+        List<Publisher> publishers = publishersOf(filter);
+        Integer rating = parseInteger(filter.getRating());
+        Double minRating = filter.getMinRating() == null ? null : Double.valueOf(filter.getMinRating());
+        boolean hasText = filter.getTitle() != null || filter.getAuthor() != null;
+        Optional<int[]> textIds = hasText
+                ? this.bookSearchIndex.findIds(filter.getTitle(), filter.getAuthor())
+                : Optional.empty();
+        Optional<BookFacetsDTO> facets = hasText && textIds.isEmpty()
+                ? Optional.empty()
+                : this.bookFacetIndex.count(textIds.orElse(null),
+                        ColumnFilter.of(year, yearFrom, yearTo, publishers, rating, minRating));
+        return facets.orElseGet(() -> this.booksRepository.countFacets(textIds
+                .map(ids -> Specification.where(idIn(ids)))
+                .orElseGet(() -> Specification.where(titleContains(filter.getTitle()))
+                        .and(authorContainsIgnoringCase(filter.getAuthor())))
+                .and(columnFilters(year, yearFrom, yearTo, publishers, rating, minRating))));
     }
 
+    private static Specification<Book> columnFilters(Integer year, Integer yearFrom, Integer yearTo,
+                                                     List<Publisher> publishers, Integer rating, Double minRating) {
+        return Specification.where(publishedIn(year))
+                .and(publishedBetween(yearFrom, yearTo))
+                .and(publishedBy(publishers))
+                .and(hasRating(rating))
+                .and(averageRatingAtLeast(minRating));
+    }
+
+    private static void checkYearRange(Integer yearFrom, Integer yearTo) {
+        if (yearFrom != null && yearTo != null && yearFrom > yearTo) {
+            throw new BadRequestException("yearFrom can't be greater than yearTo");
+        }
+    }
+
+    private static List<Publisher> publishersOf(BookFilterDTO filter) {
+        return filter.getPublishers() == null
+                ? List.of()
+                : filter.getPublishers().stream().map(Publisher::valueOf).distinct().toList();
+    }
+
+    private static Integer parseInteger(String value) {
+        return value == null ? null : Integer.valueOf(value);
+    }
+
+    @Transactional(readOnly = true)
+    public List<BookDTO> getTopBooks(TopBooksRequestDTO request) {
+        return this.bookLeaderboard.top(request.getLimit(), request.getMinVotes(), request.getPublisherFilter());
+    }
+
+    @Cacheable(cacheNames = CacheConfig.BOOKS_CACHE, key = "#id")
+    @Transactional(readOnly = true)
+    public BookDTO getBookByID(int id) {
+        Book book = this.booksRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Book doesn't exist"));
+        return this.toDTOs(List.of(book), true).getFirst();
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Long> getBookVersion(int id) {
+        return this.booksRepository.findVersion(id);
+    }
+
+    private BooksPage findPage(Specification<Book> filter, PageRequestDTO page, boolean includeRatings) {
+        BookSort sort = page.getBookSort();
+        Sort.Direction direction = page.getDirection();
+        BookCursor cursor = page.getAfter() == null ? null : BookCursor.decode(page.getAfter(), sort, direction);
+        int limit = page.getLimit();
+        // One extra row tells whether there is a next page without a COUNT query
+        List<Book> books = this.booksRepository.findBy(filter.and(after(cursor)).and(orderedBy(sort, direction)),
+                query -> query.limit(limit + 1).all());
+        if (books.size() <= limit) {
+            return new BooksPage(this.toDTOs(books, includeRatings), null);
+        }
+        List<Book> pageBooks = books.subList(0, limit);
+        String nextCursor = BookCursor.of(sort, direction, pageBooks.getLast()).encode();
+        return new BooksPage(this.toDTOs(pageBooks, includeRatings), nextCursor);
+    }
+
+    private BookDTO toDTO(Book book) {
+        return this.toDTOs(List.of(book), false).getFirst();
+    }
+
+    // Individual ratings for the whole page come from a single IN query instead of one lazy load per book
+    private List<BookDTO> toDTOs(List<Book> books, boolean includeRatings) {
+        Map<Integer, List<RatingDTO>> ratingsByBook = new HashMap<>();
+        if (includeRatings && !books.isEmpty()) {
+            List<Integer> ids = books.stream().map(Book::getId).toList();
+            this.ratingsRepository.findRatingsByBookIds(ids).forEach(rating ->
+                    ratingsByBook.computeIfAbsent(rating.getBookId(), key -> new ArrayList<>()).add(rating));
+        }
+        return books.stream().map(book -> BookDTO.of(book,
+                includeRatings ? ratingsByBook.getOrDefault(book.getId(), List.of()) : null)).toList();
+    }
+
+    @Transactional
     public ResponseEntity<SuccessResponse> addBook(AddBookDTO newBook) {
         Book book = new Book();
         book.setAuthor(newBook.getAuthor());
         book.setPublication_year(Integer.parseInt(newBook.getYear()));
         book.setTitle(newBook.getTitle());
         book.setPublisher(Publisher.valueOf(newBook.getPublisher()));
-        this.booksRepository.save(book);
+        Book savedBook = this.booksRepository.save(book);
+        this.eventPublisher.publishEvent(BooksChangedEvent.saved(this.toDTO(savedBook)));
         return ResponseEntity.ok(new SuccessResponse("Book added successfully"));
     }
 
+    @Transactional
     public ResponseEntity<SuccessResponse> rateBook(RateBookDTO ratings) {
-        Set<Integer> bookIDs = ratings.getRatings().stream().map(BookRatingDTO::getId).collect(Collectors.toSet());
-        List<Book> books = this.booksRepository.findAllById(bookIDs);
-        Map<Integer, Book> bookMap = books.stream().collect(toMap(Book::getId, Function.identity()));
-        List<Rating> newRatings = new ArrayList<>();
-        ratings.getRatings().forEach(rating -> {
-            Book book = bookMap.get(rating.getId());
-            if(book == null) {
+        this.checkBooksExist(ratings.getRatings());
+        this.saveRatings(ratings.getRatings());
+        return ResponseEntity.ok(new SuccessResponse("Ratings added successfully"));
+    }
+
+    // Only ids are read, so accepting ratings for write-behind costs a single indexed lookup
+    @Transactional(readOnly = true)
+    public void checkBooksExist(List<BookRatingDTO> ratings) {
+        Set<Integer> existingIDs = this.findExistingIds(ratings);
+        ratings.forEach(rating -> {
+            if(!existingIDs.contains(rating.getId())) {
                 throw new ResourceNotFoundException("Book with ID " + rating.getId() + " doesn't exist");
             }
+        });
+    }
+
+    // A queued batch can hold ratings of books deleted after they were accepted, those are dropped.
+    // Returns the ids of the books that still exist and were rated
+    @Transactional
+    public Set<Integer> saveQueuedRatings(List<BookRatingDTO> ratings) {
+        Set<Integer> existingIDs = this.findExistingIds(ratings);
+        this.saveRatings(ratings.stream()
+                .filter(rating -> existingIDs.contains(rating.getId()))
+                .toList());
+        return existingIDs;
+    }
+
+    private Set<Integer> findExistingIds(List<BookRatingDTO> ratings) {
+        Set<Integer> bookIDs = ratings.stream().map(BookRatingDTO::getId).collect(Collectors.toSet());
+        return new HashSet<>(this.booksRepository.findExistingIds(bookIDs));
+    }
+
+    // Books are attached as references, neither the rows nor their ratings get loaded, and all ratings
+    // of a book are folded into one aggregate update
+    private void saveRatings(List<BookRatingDTO> ratings) {
+        if (ratings.isEmpty()) {
+            return;
+        }
+        List<Rating> newRatings = new ArrayList<>();
+        Map<Integer, RatingAggregateDTO> aggregates = new HashMap<>();
+        ratings.forEach(rating -> {
             Rating newRating = new Rating();
             newRating.setScore(rating.getScore());
-            newRating.setBook(book);
-            book.getRatings().add(newRating);
+            newRating.setBook(this.booksRepository.getReferenceById(rating.getId()));
             newRatings.add(newRating);
+            aggregates.computeIfAbsent(rating.getId(), RatingAggregateDTO::new).add(rating.getScore());
         });
         this.ratingsRepository.saveAll(newRatings);
-        return ResponseEntity.ok(new SuccessResponse("Ratings added successfully"));
+        aggregates.values().forEach(this.booksRepository::addRatings);
+        List<BookDTO> ratedBooks = this.toDTOs(this.booksRepository.findAllById(aggregates.keySet()), false);
+        this.eventPublisher.publishEvent(new BooksChangedEvent(ratedBooks, List.of()));
     }
 
+    @Transactional
     public ResponseEntity<SuccessResponse> updateBook(int id, UpdateBookDTO updatedBook) {
         Book foundBook = this.booksRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Book doesn't exist"));
@@ -86,15 +268,18 @@ public class BooksService {
         if(newYear != null) {
             foundBook.setPublication_year(Integer.parseInt(updatedBook.getYear()));
         }
-        this.booksRepository.save(foundBook);
+        Book savedBook = this.booksRepository.save(foundBook);
+        this.eventPublisher.publishEvent(BooksChangedEvent.saved(this.toDTO(savedBook)));
         return ResponseEntity.ok(new SuccessResponse("Book updated successfully"));
     }
 
+    @Transactional
     public ResponseEntity<SuccessResponse> deleteBook(int id) {
         if(!this.booksRepository.existsById(id)) {
             throw new ResourceNotFoundException("Book doesn't exist");
         }
         this.booksRepository.deleteById(id);
+        this.eventPublisher.publishEvent(BooksChangedEvent.deleted(id));
         return ResponseEntity.ok(new SuccessResponse("Book deleted successfully"));
     }
 }
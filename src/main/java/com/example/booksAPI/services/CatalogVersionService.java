@@ -0,0 +1,51 @@
+package com.example.booksAPI.services;
+
+import com.example.booksAPI.entities.CatalogVersion;
+import com.example.booksAPI.events.BooksChangedEvent;
+import com.example.booksAPI.repositories.CatalogVersionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Catalog-wide modification counter behind the ETags of list and filter responses. It lives in the
+ * database rather than in memory so that every instance agrees on it, and it is bumped inside the
+ * transaction that changes the books, so a committed change is never served under an older ETag.
+ */
+@Service
+@RequiredArgsConstructor
+@DependsOnDatabaseInitialization
+public class CatalogVersionService implements InitializingBean {
+    private final CatalogVersionRepository catalogVersionRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public void afterPropertiesSet() {
+        this.transactionTemplate.executeWithoutResult(status -> {
+            if (!this.catalogVersionRepository.existsById(CatalogVersion.CATALOG_ID)) {
+                this.catalogVersionRepository.save(new CatalogVersion(CatalogVersion.CATALOG_ID, 0L));
+            }
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public long current() {
+        return this.catalogVersionRepository.findVersion(CatalogVersion.CATALOG_ID).orElse(0L);
+    }
+
+    // The row lock is taken right before commit, so concurrent writers only serialize on their last statement
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onBooksChanged(BooksChangedEvent event) {
+        this.increment();
+    }
+
+    @Transactional
+    public void increment() {
+        this.catalogVersionRepository.increment(CatalogVersion.CATALOG_ID);
+    }
+}
@@ -1,27 +1,71 @@
 package com.example.booksAPI.services;
 
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
+import com.example.booksAPI.dto.VerifiedToken;
+import com.example.booksAPI.entities.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.lang.Objects;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import java.security.Key;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Service
 public class JwtService {
 
     private static final String SECRET_KEY = "HwFMzEDYuSVjJ4Qr4zuw28H0hCOpRREn8StSfkVQSyd5H5JrCqneZi7xuW3Hl9Kb";
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String AUTHORITIES_CLAIM = "authorities";
+
+    // Both are immutable and thread-safe, so the key is decoded and the parser built only once
+    private final Key signInKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY));
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(signInKey).build();
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    public JwtService(@Value("${books.jwt.verified-cache-size:10000}") long verifiedCacheSize) {
+        this.verifiedTokens = verifiedCacheSize > 0
+                ? Caffeine.newBuilder()
+                        .maximumSize(verifiedCacheSize)
+                        .expireAfter(new UntilTokenExpires())
+                        .build()
+                : null;
+    }
+
+    // Verifies the signature and parses the claims at most once per distinct token
+    public VerifiedToken verify(String token) {
+        if (this.verifiedTokens == null) {
+            return parse(token);
+        }
+        // Not Cache.get with a loader: parsing would then run inside a ConcurrentHashMap bin monitor, and
+        // virtual threads contending for it pin their carriers. A token parsed twice in a race is harmless
+        VerifiedToken verified = this.verifiedTokens.getIfPresent(token);
+        if (verified == null) {
+            verified = parse(token);
+            this.verifiedTokens.put(token, verified);
+        }
+        if (verified.isExpired(Instant.now())) {
+            this.verifiedTokens.invalidate(token);
+            throw new ExpiredJwtException(null, null, "JWT expired at " + verified.getExpiration());
+        }
+        return verified;
+    }
 
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).getSubject();
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver){
@@ -34,40 +78,70 @@ public class JwtService {
     }
 
     public String generateToken(Map<String, Objects> extraClaims, UserDetails userDetails){
-        return Jwts
+        JwtBuilder builder = Jwts
                 .builder()
                 .setClaims(extraClaims)
+                .setId(UUID.randomUUID().toString())
+                .claim(AUTHORITIES_CLAIM, userDetails.getAuthorities().stream()
+                        .map(GrantedAuthority::getAuthority)
+                        .toList());
+        if (userDetails instanceof User user) {
+            builder.claim(USER_ID_CLAIM, user.getId());
+        }
+        return builder
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 30))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .signWith(signInKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails){
-        String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return isTokenValid(verify(token), userDetails);
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public boolean isTokenValid(VerifiedToken token, UserDetails userDetails){
+        if (userDetails instanceof User user && user.getTokens_valid_after() != null
+                && token.getIssuedAt().isBefore(user.getTokens_valid_after())) {
+            return false;
+        }
+        return token.getSubject().equals(userDetails.getUsername()) && !token.isExpired(Instant.now());
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    private VerifiedToken parse(String token) {
+        Claims claims = extractAllClaims(token);
+        List<?> authorities = claims.get(AUTHORITIES_CLAIM, List.class);
+        return new VerifiedToken(
+                claims.getSubject(),
+                claims.get(USER_ID_CLAIM, Integer.class),
+                claims.getId(),
+                authorities == null ? List.of() : authorities.stream().map(String::valueOf).toList(),
+                claims.getIssuedAt().toInstant(),
+                claims.getExpiration().toInstant());
     }
 
     private Claims extractAllClaims(String token){
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
+        return parser
                 .parseClaimsJws(token)
                 .getBody();
     }
 
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private static class UntilTokenExpires implements Expiry<String, VerifiedToken> {
+        @Override
+        public long expireAfterCreate(String token, VerifiedToken verified, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), verified.getExpiration()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, VerifiedToken verified, long currentTime,
+                                      long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String token, VerifiedToken verified, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,236 @@
+package com.example.booksAPI.services;
+
+import com.example.booksAPI.dto.BookRatingDTO;
+import com.example.booksAPI.exceptions.ServiceUnavailableException;
+import com.example.booksAPI.exceptions.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind for ratings. Accepted ratings wait in memory and a single flusher thread saves them every
+ * flush interval or as soon as a batch fills up, so a burst of clicks becomes one transaction with batched
+ * inserts and one aggregate update per book. Capacity is released only once a batch is committed, so when
+ * the database stalls the queue fills up and new ratings are refused instead of being held unboundedly. A batch
+ * that fails MAX_ATTEMPTS times in a row is dead-lettered, logged with its ratings and released, so a rating
+ * the database keeps rejecting can't block the ratings queued behind it.
+ * Ratings live only in memory until flushed, a clean stop drains them but a crash loses them. Each request
+ * gets an ingestion id that is logged with its ratings when their batch commits, is dropped or is given up on.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "books.ratings.write-behind.enabled", havingValue = "true")
+public class RatingIngestionService implements SmartLifecycle {
+    public static final String PENDING_METRIC = "books.ratings.write.behind.pending";
+    public static final String FLUSHED_METRIC = "books.ratings.write.behind.flushed";
+    private static final long STOP_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final BooksService booksService;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Duration drainTimeout;
+    private final Semaphore permits;
+    private final LinkedBlockingQueue<QueuedRating> queue = new LinkedBlockingQueue<>();
+    // Enqueueing holds the read lock, so once stop takes the write lock no rating can slip in behind the drain
+    private final ReadWriteLock acceptingLock = new ReentrantReadWriteLock();
+    private final Counter flushed;
+    private final boolean virtualThreads;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public RatingIngestionService(BooksService booksService,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${books.ratings.write-behind.queue-capacity:10000}") int capacity,
+                                  @Value("${books.ratings.write-behind.batch-size:1000}") int batchSize,
+                                  @Value("${books.ratings.write-behind.flush-interval:200ms}") Duration flushInterval,
+                                  @Value("${books.ratings.write-behind.drain-timeout:30s}") Duration drainTimeout,
+                                  @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.booksService = booksService;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.drainTimeout = drainTimeout;
+        this.virtualThreads = virtualThreads;
+        this.permits = new Semaphore(capacity);
+        this.flushed = meterRegistry.counter(FLUSHED_METRIC);
+        meterRegistry.gauge(PENDING_METRIC, this.permits, permits -> this.capacity - permits.availablePermits());
+    }
+
+    public String enqueue(List<BookRatingDTO> ratings) {
+        String ingestionId = UUID.randomUUID().toString();
+        this.acceptingLock.readLock().lock();
+        try {
+            if (!this.running) {
+                throw new ServiceUnavailableException("Ratings aren't accepted while the service is stopping");
+            }
+            if (!this.permits.tryAcquire(ratings.size())) {
+                throw new TooManyRequestsException("Too many pending ratings, try again later");
+            }
+            ratings.forEach(rating -> this.queue.add(new QueuedRating(ingestionId, rating)));
+        } finally {
+            this.acceptingLock.readLock().unlock();
+        }
+        return ingestionId;
+    }
+
+    @Override
+    public void start() {
+        this.running = true;
+        // Follows the threading of the request handlers, the flusher mostly waits on the queue and the database
+        Thread.Builder builder = this.virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform();
+        this.flusher = builder.name("rating-write-behind").start(this::run);
+    }
+
+    @Override
+    public void stop() {
+        this.acceptingLock.writeLock().lock();
+        try {
+            this.running = false;
+        } finally {
+            this.acceptingLock.writeLock().unlock();
+        }
+        try {
+            this.flusher.join(this.drainTimeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int pending = this.capacity - this.permits.availablePermits();
+        if (pending > 0) {
+            log.error("Stopped with {} accepted ratings not saved", pending);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return this.running;
+    }
+
+    // Stops after the web server, which stops accepting requests and waits for the running ones first
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void run() {
+        List<QueuedRating> batch = new ArrayList<>(this.batchSize);
+        int failures = 0;
+        while (this.running) {
+            this.collect(batch);
+            if (this.flush(batch)) {
+                failures = 0;
+            } else if (++failures >= MAX_ATTEMPTS) {
+                this.deadLetter(batch);
+                failures = 0;
+            } else {
+                LockSupport.parkNanos(this.flushIntervalNanos);
+            }
+        }
+        this.drain(batch);
+    }
+
+    private void collect(List<QueuedRating> batch) {
+        long deadline = System.nanoTime() + this.flushIntervalNanos;
+        while (batch.size() < this.batchSize && this.running) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            try {
+                // Polls in short slices, a long flush interval must not keep stop waiting for the drain
+                QueuedRating rating = this.queue.poll(Math.min(remaining, STOP_CHECK_NANOS), TimeUnit.NANOSECONDS);
+                if (rating == null) {
+                    continue;
+                }
+                batch.add(rating);
+                this.queue.drainTo(batch, this.batchSize - batch.size());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void drain(List<QueuedRating> batch) {
+        int failures = 0;
+        while ((!batch.isEmpty() || !this.queue.isEmpty()) && failures < MAX_ATTEMPTS) {
+            this.queue.drainTo(batch, this.batchSize - batch.size());
+            if (this.flush(batch)) {
+                failures = 0;
+            } else {
+                failures++;
+                LockSupport.parkNanos(this.flushIntervalNanos);
+            }
+        }
+        this.queue.drainTo(batch);
+        if (!batch.isEmpty()) {
+            log.error("Gave up on {} queued ratings of ingestions {}", batch.size(), ingestionIds(batch));
+        }
+    }
+
+    private void deadLetter(List<QueuedRating> batch) {
+        log.error("Dead-lettered {} queued ratings of ingestions {} after {} failed attempts: {}", batch.size(),
+                ingestionIds(batch), MAX_ATTEMPTS, batch.stream().map(QueuedRating::getRating).toList());
+        this.permits.release(batch.size());
+        batch.clear();
+    }
+
+    // A failed batch is kept and retried, its ratings were already acknowledged to the clients
+    private boolean flush(List<QueuedRating> batch) {
+        if (batch.isEmpty()) {
+            return true;
+        }
+        try {
+            Set<Integer> rated = this.booksService.saveQueuedRatings(
+                    batch.stream().map(QueuedRating::getRating).toList());
+            List<QueuedRating> dropped = batch.stream()
+                    .filter(queued -> !rated.contains(queued.getRating().getId()))
+                    .toList();
+            if (!dropped.isEmpty()) {
+                log.info("Dropped {} queued ratings of deleted books from ingestions {}", dropped.size(),
+                        ingestionIds(dropped));
+            }
+            log.debug("Saved {} queued ratings of ingestions {}", batch.size() - dropped.size(),
+                    ingestionIds(batch));
+            this.flushed.increment(batch.size() - dropped.size());
+            this.permits.release(batch.size());
+            batch.clear();
+            return true;
+        } catch (RuntimeException ex) {
+            log.warn("Saving {} queued ratings of ingestions {} failed, retrying", batch.size(),
+                    ingestionIds(batch), ex);
+            return false;
+        }
+    }
+
+    private static List<String> ingestionIds(List<QueuedRating> ratings) {
+        return ratings.stream().map(QueuedRating::getIngestionId).distinct().toList();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class QueuedRating {
+        private final String ingestionId;
+        private final BookRatingDTO rating;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.booksAPI.services;
+
+import com.example.booksAPI.dto.BookDTO;
+import com.example.booksAPI.dto.BookFilterDTO;
+import com.example.booksAPI.enums.Publisher;
+import com.example.booksAPI.exceptions.BadRequestException;
+import com.example.booksAPI.repositories.ReactiveBooksRepository;
+import com.example.booksAPI.search.BookSearchIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+@Service
+@Profile("reactive")
+public class ReactiveBooksService {
+    private final ReactiveBooksRepository reactiveBooksRepository;
+    private final BookSearchIndex bookSearchIndex;
+
+    // Same filters as BooksService.getFilteredBooks, title and author are resolved by the in-memory index
+    // when it is ready, so the database only sees the id list
+    public Flux<BookDTO> streamFilteredBooks(BookFilterDTO filter) {
+        Integer yearFrom = parseInteger(filter.getYearFrom());
+        Integer yearTo = parseInteger(filter.getYearTo());
+        if (yearFrom != null && yearTo != null && yearFrom > yearTo) {
+            throw new BadRequestException("yearFrom can't be greater than yearTo");
+        }
+        List<Publisher> publishers = filter.getPublishers() == null
+                ? List.of()
+                : filter.getPublishers().stream().map(Publisher::valueOf).distinct().toList();
+        int[] ids = this.bookSearchIndex.findIds(filter.getTitle(), filter.getAuthor()).orElse(null);
+        return this.reactiveBooksRepository.findFiltered(ids,
+                ids == null ? filter.getTitle() : null,
+                ids == null ? filter.getAuthor() : null,
+                parseInteger(filter.getYear()), yearFrom, yearTo, publishers, parseInteger(filter.getRating()),
+                filter.getMinRating() == null ? null : Double.valueOf(filter.getMinRating()));
+    }
+
+    private static Integer parseInteger(String value) {
+        return value == null ? null : Integer.valueOf(value);
+    }
+}
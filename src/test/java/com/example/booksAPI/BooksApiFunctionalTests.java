@@ -38,7 +38,7 @@ class BooksApiFunctionalTests {
             .withEnv("SPRING_DATASOURCE_USERNAME", "root")
             .withEnv("SPRING_DATASOURCE_PASSWORD", "root")
             .withEnv("SPRING_JPA_HIBERNATE_DDL-AUTO", "create")
-            .withEnv("SPRING_DATASOURCE_URL", "jdbc:mysql://mysql:3306/BooksAPI")
+            .withEnv("SPRING_DATASOURCE_URL", "jdbc:mysql://mysql:3306/BooksAPI?useCursorFetch=true&rewriteBatchedStatements=true")
             .withNetwork(network)
             .dependsOn(mysqlContainer);
 
@@ -1,11 +1,31 @@
 package com.example.booksAPI;
 
+import com.example.booksAPI.auth.TokenDenyList;
+import com.example.booksAPI.cache.CatalogResponseCache;
+import com.example.booksAPI.controllers.BooksController;
 import com.example.booksAPI.dto.*;
 import com.example.booksAPI.entities.Book;
 import com.example.booksAPI.entities.Rating;
+import com.example.booksAPI.entities.User;
+import com.example.booksAPI.events.BooksChangedEvent;
 import com.example.booksAPI.enums.Publisher;
+import com.example.booksAPI.jobs.RatingAggregatesRepairJob;
+import com.example.booksAPI.metrics.ServiceMetricsAspect;
+import com.example.booksAPI.metrics.StatementCounter;
 import com.example.booksAPI.repositories.BooksRepository;
+import com.example.booksAPI.repositories.RatingsRepository;
+import com.example.booksAPI.repositories.UsersRepository;
+import com.example.booksAPI.services.BooksImportService;
+import com.example.booksAPI.services.JwtService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
@@ -13,20 +33,39 @@ import org.junit.jupiter.api.TestMethodOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.context.event.ApplicationEventMulticaster;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
+import static com.example.booksAPI.repositories.BookSpecifications.authorContainsIgnoringCase;
+import static com.example.booksAPI.repositories.BookSpecifications.publishedBetween;
+import static com.example.booksAPI.repositories.BookSpecifications.publishedBy;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -43,6 +82,52 @@ class BooksApiIntegrationTests {
 	@Autowired
 	BooksRepository booksRepository;
 
+	@Autowired
+	RatingsRepository ratingsRepository;
+
+	@Autowired
+	RatingAggregatesRepairJob ratingAggregatesRepairJob;
+
+	@Autowired
+	EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	EntityManager entityManager;
+
+	@Autowired
+	CacheManager cacheManager;
+
+	@Autowired
+	CatalogResponseCache catalogResponseCache;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	@Autowired
+	JwtService jwtService;
+
+	@Autowired
+	TokenDenyList tokenDenyList;
+
+	@Autowired
+	UsersRepository usersRepository;
+
+	@Autowired
+	BCryptPasswordEncoder passwordEncoder;
+
+	@Autowired
+	BooksImportService booksImportService;
+
+	@Autowired
+	ApplicationEventMulticaster eventMulticaster;
+
+	@AfterEach
+	public void clearCaches() {
+		this.cacheManager.getCacheNames().forEach(name -> this.cacheManager.getCache(name).clear());
+		// Tests rolled back by @Transactional never publish the after-commit invalidation
+		this.catalogResponseCache.invalidateAll();
+	}
+
 
 	@Order(1)
 	@Test
@@ -52,6 +137,77 @@ class BooksApiIntegrationTests {
 				.andExpect(jsonPath("$[0].title").value("To Kill a Mockingbird"));
 	}
 
+	@Test
+	public void itShouldListBooksWithConstantNumberOfStatements() throws Exception {
+		Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+		statistics.clear();
+
+		this.mockMvc.perform(get("/books"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].rating_count").value(0));
+		// Catalog version for the ETag and the page itself
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+
+		statistics.clear();
+		this.mockMvc.perform(get("/books?includeRatings=true"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].ratings", hasSize(0)));
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+		statistics.setStatisticsEnabled(false);
+	}
+
+	@Test
+	public void itShouldPageThroughBooksWithCursor() throws Exception {
+		String cursor = this.mockMvc.perform(get("/books?limit=4&sort=YEAR"))
+				.andExpect(jsonPath("$", hasSize(4)))
+				.andExpect(jsonPath("$[0].title").value("Pride and Prejudice"))
+				.andExpect(jsonPath("$[3].title").value("Ulysses"))
+				.andReturn().getResponse().getHeader(BooksController.NEXT_CURSOR_HEADER);
+		assertThat(cursor).isNotBlank();
+
+		this.mockMvc.perform(get("/books?limit=4&sort=YEAR").param("after", cursor))
+				.andExpect(jsonPath("$", hasSize(4)))
+				.andExpect(jsonPath("$[0].title").value("The Great Gatsby"))
+				.andExpect(jsonPath("$[3].title").value("1984"));
+	}
+
+	@Test
+	@Transactional
+	public void itShouldPageThroughBooksWithoutSortValue() throws Exception {
+		Book first = new Book();
+		first.setTitle("Undated 1");
+		Book second = new Book();
+		second.setTitle("Undated 2");
+		this.booksRepository.saveAllAndFlush(List.of(first, second));
+
+		String cursor = this.mockMvc.perform(get("/books?limit=1&sort=YEAR"))
+				.andExpect(jsonPath("$[0].title").value("Undated 1"))
+				.andReturn().getResponse().getHeader(BooksController.NEXT_CURSOR_HEADER);
+		this.mockMvc.perform(get("/books?limit=2&sort=YEAR").param("after", cursor))
+				.andExpect(jsonPath("$[*].title", contains("Undated 2", "Pride and Prejudice")));
+
+		int dated = (int) this.booksRepository.count() - 2;
+		cursor = this.mockMvc.perform(get("/books?sort=YEAR&order=DESC").param("limit", String.valueOf(dated)))
+				.andExpect(jsonPath("$[" + (dated - 1) + "].title").value("Pride and Prejudice"))
+				.andReturn().getResponse().getHeader(BooksController.NEXT_CURSOR_HEADER);
+		cursor = this.mockMvc.perform(get("/books?limit=1&sort=YEAR&order=DESC").param("after", cursor))
+				.andExpect(jsonPath("$[*].title", contains("Undated 2")))
+				.andReturn().getResponse().getHeader(BooksController.NEXT_CURSOR_HEADER);
+		this.mockMvc.perform(get("/books?limit=2&sort=YEAR&order=DESC").param("after", cursor))
+				.andExpect(jsonPath("$[*].title", contains("Undated 1")));
+	}
+
+	@Test
+	public void itShouldRejectCursorForDifferentSort() throws Exception {
+		String cursor = this.mockMvc.perform(get("/books?limit=1"))
+				.andReturn().getResponse().getHeader(BooksController.NEXT_CURSOR_HEADER);
+
+		this.mockMvc.perform(get("/books?sort=TITLE").param("after", cursor))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.message").value("Cursor doesn't match requested sort order"));
+	}
+
 	@Test
 	public void itShouldReturnFilteredBooks() throws Exception {
 		//H2 is case-sensitive
@@ -62,6 +218,185 @@ class BooksApiIntegrationTests {
 				.andExpect(jsonPath("$[2].title").value("The Hobbit"));
 	}
 
+	@Test
+	@Transactional
+	public void itShouldFilterBooksByYearRangePublishersAndMinimumRating() throws Exception {
+		this.mockMvc.perform(post("/books/rating")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(this.mapper.writeValueAsString(new RateBookDTO(List.of(new BookRatingDTO(1, 5))))));
+
+		this.mockMvc.perform(get("/books/filter?yearFrom=1920&yearTo=1940&publisher=POLLUB,UP"))
+				.andExpect(jsonPath("$", hasSize(4)))
+				.andExpect(jsonPath("$[*].id", contains(3, 8, 9, 10)));
+
+		this.mockMvc.perform(get("/books/filter?yearTo=1950&publisher=UMCS"))
+				.andExpect(jsonPath("$", hasSize(0)));
+
+		this.mockMvc.perform(get("/books/filter?minRating=4.5&yearTo=1960"))
+				.andExpect(jsonPath("$", hasSize(1)))
+				.andExpect(jsonPath("$[0].id").value(1));
+
+		this.mockMvc.perform(get("/books/filter?yearFrom=1940&yearTo=1920"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.message").value("yearFrom can't be greater than yearTo"));
+	}
+
+	@Test
+	public void itShouldRevalidateBooksWithETags() throws Exception {
+		String listETag = this.mockMvc.perform(get("/books"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		String bookETag = this.mockMvc.perform(get("/books/2"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		this.mockMvc.perform(get("/books").header(HttpHeaders.IF_NONE_MATCH, listETag))
+				.andExpect(status().isNotModified());
+		this.mockMvc.perform(get("/books/filter?yearTo=1960").header(HttpHeaders.IF_NONE_MATCH, listETag))
+				.andExpect(status().isNotModified());
+		this.mockMvc.perform(get("/books/2").header(HttpHeaders.IF_NONE_MATCH, bookETag))
+				.andExpect(status().isNotModified());
+
+		this.mockMvc.perform(post("/books/rating")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(this.mapper.writeValueAsString(new RateBookDTO(List.of(new BookRatingDTO(2, 1))))));
+
+		this.mockMvc.perform(get("/books").header(HttpHeaders.IF_NONE_MATCH, listETag))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, not(listETag)));
+		this.mockMvc.perform(get("/books/2").header(HttpHeaders.IF_NONE_MATCH, bookETag))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, not(bookETag)))
+				.andExpect(jsonPath("$.rating_count").value(1));
+	}
+
+	@Test
+	public void itShouldServeCatalogFromResponseCacheUntilBooksChange() throws Exception {
+		Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+		this.mockMvc.perform(get("/books?limit=3"))
+				.andExpect(jsonPath("$[2].title").value("The Great Gatsby"));
+
+		statistics.clear();
+		this.mockMvc.perform(get("/books?limit=3"))
+				.andExpect(jsonPath("$[2].title").value("The Great Gatsby"));
+		// Only the catalog version is read
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		statistics.setStatisticsEnabled(false);
+
+		this.mockMvc.perform(put("/books/3")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(this.mapper.writeValueAsString(new UpdateBookDTO("The Great Gatsby (1925)", null, null))));
+		this.mockMvc.perform(get("/books?limit=3"))
+				.andExpect(jsonPath("$[2].title").value("The Great Gatsby (1925)"));
+
+		this.mockMvc.perform(put("/books/3")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(this.mapper.writeValueAsString(new UpdateBookDTO("The Great Gatsby", null, null))));
+	}
+
+	@Test
+	public void itShouldRecordServiceRepositoryAndStatementMetrics() throws Exception {
+		StatementCounter.reset();
+		this.mockMvc.perform(get("/books/3"))
+				.andExpect(status().isOk());
+
+		assertThat(StatementCounter.current()).isGreaterThanOrEqualTo(2);
+		assertThat(this.meterRegistry.get(ServiceMetricsAspect.METRIC_NAME).tag("service", "BooksService")
+				.tag("method", "getBookByID").tag("exception", "none").timer().count()).isGreaterThanOrEqualTo(1);
+		assertThat(this.meterRegistry.get("spring.data.repository.invocations").tag("repository", "BooksRepository")
+				.tag("method", "findById").timer().count()).isGreaterThanOrEqualTo(1);
+		assertThat(this.meterRegistry.find("hikaricp.connections.acquire").timer()).isNotNull();
+	}
+
+	@Test
+	public void itShouldCountFacetsOfFilteredBooks() throws Exception {
+		this.mockMvc.perform(get("/books/facets?yearFrom=1920&yearTo=1940&publisher=POLLUB"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.total").value(4))
+				.andExpect(jsonPath("$.publishers.POLLUB").value(4))
+				.andExpect(jsonPath("$.publishers.UMCS").value(0))
+				.andExpect(jsonPath("$.decades.1920").value(2))
+				.andExpect(jsonPath("$.decades.1930").value(2));
+
+		this.mockMvc.perform(get("/books/facets?title=Hobbit&author=Tolkien"))
+				.andExpect(jsonPath("$.total").value(1))
+				.andExpect(jsonPath("$.decades.1930").value(1));
+
+		this.mockMvc.perform(get("/books/facets?yearFrom=1950&yearTo=1940"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.message").value("yearFrom can't be greater than yearTo"));
+	}
+
+	@Test
+	public void itShouldCountSameFacetsInSqlAsInMemory() throws Exception {
+		String inMemory = this.mockMvc.perform(get("/books/facets?yearFrom=1920&yearTo=1940&publisher=POLLUB"))
+				.andReturn().getResponse().getContentAsString();
+		assertThat(this.booksRepository.countFacets(Specification.where(publishedBetween(1920, 1940))
+				.and(publishedBy(List.of(Publisher.POLLUB)))))
+				.isEqualTo(this.mapper.readValue(inMemory, BookFacetsDTO.class));
+
+		String byAuthor = this.mockMvc.perform(get("/books/facets?author=tolkien"))
+				.andReturn().getResponse().getContentAsString();
+		assertThat(this.booksRepository.countFacets(Specification.where(authorContainsIgnoringCase("TOLKIEN"))))
+				.isEqualTo(this.mapper.readValue(byAuthor, BookFacetsDTO.class));
+	}
+
+	@Test
+	public void itShouldReturnTopRatedBooks() throws Exception {
+		this.mockMvc.perform(get("/books/top?limit=3&publisher=POLLUB"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(3)));
+
+		this.mockMvc.perform(get("/books/top"))
+				.andExpect(jsonPath("$", hasSize(10)));
+
+		this.mockMvc.perform(get("/books/top?minVotes=1000"))
+				.andExpect(jsonPath("$", hasSize(0)));
+
+		this.mockMvc.perform(get("/books/top?limit=0&publisher=NOPE"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	public void itShouldExportAllBooksAsNdjson() throws Exception {
+		MvcResult result = this.mockMvc.perform(get("/books/export"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		String body = this.mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+
+		// Only the export runs without an async timeout
+		assertThat(result.getRequest().getAsyncContext().getTimeout()).isEqualTo(-1);
+		String[] lines = body.split("\n");
+		assertThat(lines).hasSize((int) this.booksRepository.count());
+		assertThat(this.mapper.readTree(lines[0]).get("id").asInt()).isEqualTo(1);
+		assertThat(this.mapper.readTree(lines[0]).has("ratings")).isFalse();
+	}
+
+	@Test
+	public void itShouldResolveTextFiltersThroughSearchIndex() throws Exception {
+		this.mockMvc.perform(get("/books/filter?title=the&author=j."))
+				.andExpect(jsonPath("$", hasSize(2)))
+				.andExpect(jsonPath("$[0].title").value("The Catcher in the Rye"))
+				.andExpect(jsonPath("$[1].title").value("The Hobbit"));
+
+		AddBookDTO newBook = new AddBookDTO("The Silmarillion", "1977", "J.R.R. Tolkien", "UP");
+		this.mockMvc.perform(post("/books")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(this.mapper.writeValueAsString(newBook)));
+
+		String body = this.mockMvc.perform(get("/books/filter?title=silmarillion"))
+				.andExpect(jsonPath("$", hasSize(1)))
+				.andExpect(jsonPath("$[0].author").value("J.R.R. Tolkien"))
+				.andReturn().getResponse().getContentAsString();
+
+		this.mockMvc.perform(delete("/books/{id}", this.mapper.readTree(body).get(0).get("id").asInt()));
+		this.mockMvc.perform(get("/books/filter?title=silmarillion"))
+				.andExpect(jsonPath("$", hasSize(0)));
+	}
+
 	@Test
 	public void itShouldReturnBookById() throws Exception {
 		Book found = booksRepository.findById(1).get();
@@ -70,6 +405,53 @@ class BooksApiIntegrationTests {
 				.andExpect(jsonPath("$.title").value(found.getTitle()));
 	}
 
+	@Test
+	public void itShouldServeRepeatedBookReadsFromCache() throws Exception {
+		Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+		this.mockMvc.perform(get("/books/2")).andExpect(status().isOk());
+
+		statistics.clear();
+		this.mockMvc.perform(get("/books/2"))
+				.andExpect(jsonPath("$.title").value("1984"));
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+		statistics.setStatisticsEnabled(false);
+
+		this.mockMvc.perform(get("/actuator/metrics/cache.gets").param("tag", "result:hit"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.measurements[0].value").value(greaterThanOrEqualTo(1.0)));
+	}
+
+	@Test
+	public void itShouldEvictCachedBookOnWrite() throws Exception {
+		this.mockMvc.perform(get("/books/3")).andExpect(jsonPath("$.rating_count").value(0));
+
+		this.mockMvc.perform(post("/books/rating")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(this.mapper.writeValueAsString(new RateBookDTO(List.of(new BookRatingDTO(3, 4))))));
+		this.mockMvc.perform(get("/books/3")).andExpect(jsonPath("$.rating_count").value(1));
+
+		UpdateBookDTO updateBookDTO = new UpdateBookDTO("The Great Gatsby", "1926", null);
+		this.mockMvc.perform(put("/books/3")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(this.mapper.writeValueAsString(updateBookDTO)));
+		this.mockMvc.perform(get("/books/3")).andExpect(jsonPath("$.publication_year").value(1926));
+
+		// Nothing here rolls back, the rating is removed and the restoring update republishes the book
+		// with its recomputed aggregates
+		this.ratingsRepository.deleteAllById(this.ratingsRepository.findRatingsByBookIds(List.of(3)).stream()
+				.map(RatingDTO::getId)
+				.toList());
+		this.ratingAggregatesRepairJob.repair();
+		updateBookDTO.setYear("1925");
+		this.mockMvc.perform(put("/books/3")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(this.mapper.writeValueAsString(updateBookDTO)));
+		this.mockMvc.perform(get("/books/3"))
+				.andExpect(jsonPath("$.publication_year").value(1925))
+				.andExpect(jsonPath("$.rating_count").value(0));
+	}
+
 	@Test
 	public void itShouldThrowExceptionWhenBookNotFound() throws Exception {
 		this.mockMvc.perform(get("/books/20"))
@@ -120,6 +502,179 @@ class BooksApiIntegrationTests {
 		List<Rating> ratings = book.getRatings();
 		assertThat(ratings).hasSize(1);
 		assertThat(ratings.getFirst().getScore()).isEqualTo(5);
+
+		this.mockMvc.perform(get("/books/1"))
+				.andExpect(jsonPath("$.rating_count").value(1))
+				.andExpect(jsonPath("$.average_rating").value(5.0))
+				.andExpect(jsonPath("$.rating_histogram[4]").value(1))
+				.andExpect(jsonPath("$.ratings[0].score").value(5));
+
+		this.mockMvc.perform(get("/books/filter?rating=5"))
+				.andExpect(jsonPath("$", hasSize(1)))
+				.andExpect(jsonPath("$[0].id").value(1));
+	}
+
+	@Test
+	@Transactional
+	public void itShouldBatchRatingInserts() throws Exception {
+		List<BookRatingDTO> ratings = new ArrayList<>();
+		for (int i = 0; i < 120; i++) {
+			ratings.add(new BookRatingDTO(4 + i % 2, 1 + i % 5));
+		}
+		Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+		statistics.clear();
+
+		this.mockMvc.perform(post("/books/rating")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(this.mapper.writeValueAsString(new RateBookDTO(ratings))))
+				.andExpect(jsonPath("$.message").value("Ratings added successfully"));
+
+		// Book lookup, one batched insert for all ratings, one aggregate update per book and the reload
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(5);
+		statistics.setStatisticsEnabled(false);
+		assertThat(this.ratingsRepository.findRatingsByBookIds(List.of(4, 5))).hasSize(120);
+	}
+
+	@Test
+	@Transactional
+	public void itShouldRateBookWithoutLoadingItsRatings() throws Exception {
+		Book book = this.booksRepository.findById(6).get();
+		List<Rating> existing = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			Rating rating = new Rating();
+			rating.setScore(1 + i % 5);
+			rating.setBook(book);
+			existing.add(rating);
+		}
+		this.ratingsRepository.saveAll(existing);
+		this.entityManager.flush();
+		this.entityManager.clear();
+		Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+		statistics.clear();
+
+		this.mockMvc.perform(post("/books/rating")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(this.mapper.writeValueAsString(new RateBookDTO(List.of(new BookRatingDTO(6, 5))))))
+				.andExpect(jsonPath("$.message").value("Ratings added successfully"));
+
+		// Id check, rating insert, aggregate update and the reload for the change event
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+		assertThat(statistics.getCollectionLoadCount()).isZero();
+		statistics.setStatisticsEnabled(false);
+	}
+
+	@Test
+	@Transactional
+	public void itShouldImportBooksFromCsvAndReportLineErrors() throws Exception {
+		String csv = """
+				title,year,author,publisher,ratings
+				"Dune, Part One",1965,Frank Herbert,UMCS,5;4;4
+				Bad Year,3000,Someone,UMCS,
+				"Solaris",1961,"Stanisław Lem",UP,
+				Too,Few,Fields
+				Bad Rating,1999,Someone,UP,7
+				""";
+
+		this.mockMvc.perform(post("/books/import").contentType("text/csv").content(csv))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.imported").value(2))
+				.andExpect(jsonPath("$.failed").value(3))
+				.andExpect(jsonPath("$.errors", hasSize(3)))
+				.andExpect(jsonPath("$.errors[0].line").value(3))
+				.andExpect(jsonPath("$.errors[0].message").value("year: it is not a valid year"))
+				.andExpect(jsonPath("$.errors[1].line").value(5))
+				.andExpect(jsonPath("$.errors[2].line").value(6))
+				.andExpect(jsonPath("$.errors[2].message").value("ratings[0].<list element>: must be in range 1-5"));
+
+		Book dune = this.booksRepository.findAll().stream()
+				.filter(book -> book.getTitle().equals("Dune, Part One")).findFirst().orElseThrow();
+		assertThat(dune.getRating_count()).isEqualTo(3);
+		assertThat(dune.getAverage_rating()).isCloseTo(13.0 / 3, within(1e-9));
+		assertThat(dune.getRating_histogram()).containsExactly(0, 0, 0, 2, 1);
+		assertThat(this.ratingsRepository.findRatingsByBookIds(List.of(dune.getId()))).hasSize(3);
+	}
+
+	@Test
+	@Transactional
+	public void itShouldImportBooksFromNdjson() throws Exception {
+		String ndjson = """
+				{"title":"Neuromancer","year":"1984","author":"William Gibson","publisher":"UP","ratings":[5]}
+				{"title":"Broken",
+				{"title":"No Publisher","year":"1990","author":"Someone"}
+				null
+				""";
+
+		this.mockMvc.perform(post("/books/import").contentType(MediaType.APPLICATION_NDJSON).content(ndjson))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.imported").value(1))
+				.andExpect(jsonPath("$.failed").value(3))
+				.andExpect(jsonPath("$.errors[0].line").value(2))
+				.andExpect(jsonPath("$.errors[1].message").value("publisher: cannot be null"))
+				.andExpect(jsonPath("$.errors[2].line").value(4))
+				.andExpect(jsonPath("$.errors[2].message").value("empty record"));
+	}
+
+	@Test
+	@Transactional
+	public void itShouldClearPersistenceContextBetweenImportChunks() throws Exception {
+		Object importService = AopTestUtils.getTargetObject(this.booksImportService);
+		int chunkSize = (int) ReflectionTestUtils.getField(importService, "chunkSize");
+		ReflectionTestUtils.setField(importService, "chunkSize", 2);
+		// The test transaction shares its EntityManager with every chunk, like open-in-view does for a request
+		List<Integer> managedPerChunk = new ArrayList<>();
+		ApplicationListener<PayloadApplicationEvent<BooksChangedEvent>> listener = event -> managedPerChunk.add(
+				this.entityManager.unwrap(SessionImplementor.class).getPersistenceContext().getNumberOfManagedEntities());
+		this.eventMulticaster.addApplicationListener(listener);
+		try {
+			String ndjson = """
+					{"title":"Chunk 1","year":"2001","author":"Someone","publisher":"UP","ratings":[5]}
+					{"title":"Chunk 2","year":"2002","author":"Someone","publisher":"UP","ratings":[4]}
+					{"title":"Chunk 3","year":"2003","author":"Someone","publisher":"UP","ratings":[3]}
+					{"title":"Chunk 4","year":"2004","author":"Someone","publisher":"UP","ratings":[2]}
+					{"title":"Chunk 5","year":"2005","author":"Someone","publisher":"UP","ratings":[1]}
+					""";
+
+			this.mockMvc.perform(post("/books/import").contentType(MediaType.APPLICATION_NDJSON).content(ndjson))
+					.andExpect(status().isOk())
+					.andExpect(jsonPath("$.imported").value(5));
+		} finally {
+			this.eventMulticaster.removeApplicationListener(listener);
+			ReflectionTestUtils.setField(importService, "chunkSize", chunkSize);
+		}
+
+		// Each chunk sees only its own books and ratings, nothing is left once the import returns
+		assertThat(managedPerChunk).containsExactly(4, 4, 2);
+		assertThat(this.entityManager.unwrap(SessionImplementor.class).getPersistenceContext()
+				.getNumberOfManagedEntities()).isZero();
+	}
+
+	@Test
+	public void itShouldRejectCsvWithoutRequiredColumns() throws Exception {
+		this.mockMvc.perform(post("/books/import").contentType("text/csv").content("title,author\nA,B\n"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.message").value("CSV header is missing columns: year, publisher"));
+	}
+
+	@Test
+	@Transactional
+	public void itShouldRepairRatingAggregatesFromRawRatings() {
+		Book book = this.booksRepository.findById(2).get();
+		for (int score : new int[]{2, 4, 4}) {
+			Rating rating = new Rating();
+			rating.setScore(score);
+			rating.setBook(book);
+			this.ratingsRepository.save(rating);
+		}
+
+		assertThat(this.ratingAggregatesRepairJob.repair()).isGreaterThanOrEqualTo(10);
+
+		Book repaired = this.booksRepository.findById(2).get();
+		assertThat(repaired.getRating_count()).isEqualTo(3);
+		assertThat(repaired.getRating_sum()).isEqualTo(10L);
+		assertThat(repaired.getAverage_rating()).isCloseTo(10.0 / 3, within(1e-9));
+		assertThat(repaired.getRating_histogram()).containsExactly(0, 1, 0, 2, 0);
 	}
 
 	@Test
@@ -197,5 +752,73 @@ class BooksApiIntegrationTests {
 				.andExpect(status().isBadRequest());
 	}
 
+	@Test
+	public void itShouldRevokeTokensThroughDenyList() throws Exception {
+		RegisterUserDTO user = new RegisterUserDTO("revoke@example.com", "Password1!");
+		MvcResult register = this.mockMvc.perform(post("/auth/register")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(this.mapper.writeValueAsString(user)))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		this.mockMvc.perform(asyncDispatch(register)).andExpect(status().isOk());
+		String jwt = login("revoke@example.com", "Password1!");
+
+		VerifiedToken token = this.jwtService.verify(jwt);
+		assertThat(token.getUserId()).isNotNull();
+		assertThat(token.getTokenId()).isNotNull();
+		this.tokenDenyList.refresh();
+		assertThat(this.tokenDenyList.isRevoked(token)).isFalse();
+
+		this.tokenDenyList.revoke(token);
+		assertThat(this.tokenDenyList.isRevoked(token)).isTrue();
+		this.tokenDenyList.refresh();
+		assertThat(this.tokenDenyList.isRevoked(token)).isTrue();
+
+		VerifiedToken older = new VerifiedToken(token.getSubject(), token.getUserId(), "other-token",
+				token.getAuthorities(), token.getIssuedAt(), token.getExpiration());
+		this.tokenDenyList.revokeIssuedBefore(token.getUserId(), token.getIssuedAt().plusSeconds(1));
+		this.tokenDenyList.refresh();
+		assertThat(this.tokenDenyList.isRevoked(older)).isTrue();
+	}
 
+	@Test
+	public void itShouldRehashPasswordWithLowerCostOnLogin() throws Exception {
+		User user = new User();
+		user.setEmail("rehash@example.com");
+		user.setPassword(new BCryptPasswordEncoder(4).encode("Password1!"));
+		User saved = usersRepository.save(user);
+
+		String jwt = login("rehash@example.com", "Password1!");
+
+		assertThat(this.jwtService.verify(jwt).getUserId()).isEqualTo(saved.getId());
+		String rehashed = usersRepository.findById(saved.getId()).orElseThrow().getPassword();
+		assertThat(rehashed).startsWith("$2a$10$");
+		assertThat(this.passwordEncoder.matches("Password1!", rehashed)).isTrue();
+	}
+
+	@Test
+	public void itShouldRejectInvalidCredentialsFromHashingExecutor() throws Exception {
+		MvcResult result = this.mockMvc.perform(post("/auth/login")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(this.mapper.writeValueAsString(new LoginUserDTO("nobody@example.com", "Password1!"))))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		this.mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.code").value("400"));
+	}
+
+	private String login(String email, String password) throws Exception {
+		MvcResult result = this.mockMvc.perform(post("/auth/login")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(this.mapper.writeValueAsString(new LoginUserDTO(email, password))))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		assertThat(result.getRequest().getAsyncContext().getTimeout()).isPositive();
+		MvcResult login = this.mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andReturn();
+		return JsonPath.read(login.getResponse().getContentAsString(), "$.token");
+	}
 }
@@ -0,0 +1,71 @@
+package com.example.booksAPI;
+
+import com.example.booksAPI.dto.BookRatingDTO;
+import com.example.booksAPI.dto.RateBookDTO;
+import com.example.booksAPI.repositories.BooksRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// POST /books/rating with write-behind enabled, ratings are acknowledged with 202 and saved by the flusher
+@SpringBootTest
+@AutoConfigureMockMvc(addFilters = false)
+@TestPropertySource(locations = "classpath:application-integration-test.properties", properties = {
+		"spring.datasource.url=jdbc:h2:mem:write-behind;DB_CLOSE_DELAY=-1",
+		"books.ratings.write-behind.enabled=true",
+		"books.ratings.write-behind.flush-interval=50ms"
+})
+class RatingWriteBehindIntegrationTests {
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	BooksRepository booksRepository;
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	@Test
+	public void itShouldAcceptRatingsAndSaveThemBehind() throws Exception {
+		RateBookDTO ratings = new RateBookDTO(List.of(new BookRatingDTO(2, 4), new BookRatingDTO(2, 2)));
+
+		this.mockMvc.perform(post("/books/rating")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(this.mapper.writeValueAsString(ratings)))
+				.andExpect(status().isAccepted())
+				.andExpect(jsonPath("$.message").value("Ratings accepted"))
+				.andExpect(jsonPath("$.ingestionId").isNotEmpty());
+
+		long deadline = System.nanoTime() + 5_000_000_000L;
+		while (this.booksRepository.findById(2).orElseThrow().getRating_count() < 2 && System.nanoTime() < deadline) {
+			Thread.sleep(20);
+		}
+		assertThat(this.booksRepository.findById(2).orElseThrow().getRating_count()).isEqualTo(2);
+		assertThat(this.booksRepository.findById(2).orElseThrow().getAverage_rating()).isEqualTo(3.0);
+	}
+
+	@Test
+	public void itShouldRejectRatingsOfUnknownBooksBeforeQueueing() throws Exception {
+		RateBookDTO ratings = new RateBookDTO(List.of(new BookRatingDTO(1, 5), new BookRatingDTO(999, 3)));
+
+		this.mockMvc.perform(post("/books/rating")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(this.mapper.writeValueAsString(ratings)))
+				.andExpect(status().isNotFound())
+				.andExpect(jsonPath("$.message").value("Book with ID 999 doesn't exist"));
+
+		Thread.sleep(200);
+		assertThat(this.booksRepository.findById(1).orElseThrow().getRating_count()).isZero();
+	}
+}
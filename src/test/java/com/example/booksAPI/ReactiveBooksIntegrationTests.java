@@ -0,0 +1,96 @@
+package com.example.booksAPI;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// R2DBC opens the same in-memory H2 database as JPA, so both stacks read the rows of data.sql
+@SpringBootTest
+@AutoConfigureMockMvc(addFilters = false)
+@ActiveProfiles("reactive")
+@TestPropertySource(locations = "classpath:application-integration-test.properties", properties = {
+		"spring.datasource.url=jdbc:h2:mem:reactive;DB_CLOSE_DELAY=-1",
+		"spring.r2dbc.url=r2dbc:h2:mem:///reactive;DB_CLOSE_DELAY=-1",
+		"spring.r2dbc.username=sa",
+		"spring.r2dbc.password=sa"
+})
+class ReactiveBooksIntegrationTests {
+	@Autowired
+	MockMvc mockMvc;
+
+	@Test
+	public void itShouldStreamFilteredBooksAsNdjson() throws Exception {
+		MvcResult result = this.mockMvc.perform(get("/books/filter?yearFrom=1920&yearTo=1940&publisher=POLLUB")
+						.accept(MediaType.APPLICATION_NDJSON))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		String body = this.mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+				.andReturn().getResponse().getContentAsString();
+
+		assertThat(body.lines().toList()).containsExactly(
+				"{\"id\":3,\"title\":\"The Great Gatsby\",\"publication_year\":1925,\"author\":\"F. Scott Fitzgerald\","
+						+ "\"publisher\":\"POLLUB\",\"rating_count\":0,\"average_rating\":0.0,\"rating_histogram\":[0,0,0,0,0]}",
+				"{\"id\":8,\"title\":\"Ulysses\",\"publication_year\":1922,\"author\":\"James Joyce\","
+						+ "\"publisher\":\"POLLUB\",\"rating_count\":0,\"average_rating\":0.0,\"rating_histogram\":[0,0,0,0,0]}",
+				"{\"id\":9,\"title\":\"The Hobbit\",\"publication_year\":1937,\"author\":\"J.R.R. Tolkien\","
+						+ "\"publisher\":\"POLLUB\",\"rating_count\":0,\"average_rating\":0.0,\"rating_histogram\":[0,0,0,0,0]}",
+				"{\"id\":10,\"title\":\"Brave New World\",\"publication_year\":1932,\"author\":\"Aldous Huxley\","
+						+ "\"publisher\":\"POLLUB\",\"rating_count\":0,\"average_rating\":0.0,\"rating_histogram\":[0,0,0,0,0]}");
+	}
+
+	@Test
+	public void itShouldStreamBooksMatchedByTitle() throws Exception {
+		MvcResult result = this.mockMvc.perform(get("/books/filter?title=Hobbit")
+						.accept(MediaType.APPLICATION_NDJSON))
+				.andReturn();
+
+		String body = this.mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+
+		assertThat(body.lines().toList()).hasSize(1).first().asString().contains("\"id\":9");
+	}
+
+	@Test
+	public void itShouldKeepServingJsonPagesFromServletStack() throws Exception {
+		this.mockMvc.perform(get("/books/filter?yearFrom=1920&yearTo=1940&publisher=POLLUB")
+						.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+				.andExpect(jsonPath("$.length()").value(4));
+	}
+
+	@Test
+	public void itShouldRejectInvalidYearRangeBeforeStreaming() throws Exception {
+		this.mockMvc.perform(get("/books/filter?yearFrom=1950&yearTo=1940")
+						.accept(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_JSON))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.message").value("yearFrom can't be greater than yearTo"));
+	}
+
+	@Test
+	public void itShouldRejectPagingParametersForStreams() throws Exception {
+		this.mockMvc.perform(get("/books/filter?publisher=POLLUB&limit=2&sort=TITLE")
+						.accept(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_JSON))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.message").value("includeRatings, limit, sort, order and after aren't "
+						+ "supported for NDJSON streams, request application/json to page through the results"));
+	}
+}
@@ -0,0 +1,68 @@
+package com.example.booksAPI;
+
+import com.example.booksAPI.dto.UpdateBookDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The replica is a separate H2 database seeded by replica.sql with a title the primary doesn't have,
+// so the response shows where a read was routed
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(locations = "classpath:application-integration-test.properties", properties = {
+		"spring.datasource.url=jdbc:h2:mem:routing;DB_CLOSE_DELAY=-1",
+		"books.datasource.replicas[0].url=jdbc:h2:mem:routing_replica;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:replica.sql'",
+		"books.datasource.replicas[0].username=sa",
+		"books.datasource.replicas[0].password=sa",
+		"books.datasource.read-after-write-window=1m"
+})
+class ReadReplicaRoutingIntegrationTests {
+	@Autowired
+	ObjectMapper mapper;
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	CacheManager cacheManager;
+
+	@AfterEach
+	public void clearCaches() {
+		this.cacheManager.getCacheNames().forEach(name -> this.cacheManager.getCache(name).clear());
+	}
+
+	@Test
+	public void itShouldReadFromReplicaUntilClientWrites() throws Exception {
+		this.mockMvc.perform(get("/books/1").with(user("writer")))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.title").value("To Kill a Mockingbird (replica)"));
+
+		this.mockMvc.perform(put("/books/2").with(user("writer"))
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(this.mapper.writeValueAsString(new UpdateBookDTO(null, "1950", null))))
+				.andExpect(status().isOk());
+		this.clearCaches();
+
+		this.mockMvc.perform(get("/books/1").with(user("writer")))
+				.andExpect(jsonPath("$.title").value("To Kill a Mockingbird"));
+		this.mockMvc.perform(get("/books/2").with(user("writer")))
+				.andExpect(jsonPath("$.publication_year").value(1950));
+		this.clearCaches();
+
+		this.mockMvc.perform(get("/books/1").with(user("reader")))
+				.andExpect(jsonPath("$.title").value("To Kill a Mockingbird (replica)"));
+	}
+}
@@ -0,0 +1,103 @@
+package com.example.booksAPI;
+
+import com.example.booksAPI.dto.LoginUserDTO;
+import com.example.booksAPI.dto.RegisterUserDTO;
+import com.example.booksAPI.repositories.BooksRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Unlike BooksApiIntegrationTests the security filter chain is installed, requests go through JwtFilter
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@TestPropertySource(locations = "classpath:application-integration-test.properties", properties = {
+		"spring.datasource.url=jdbc:h2:mem:security;DB_CLOSE_DELAY=-1",
+		"books.metrics.scrape-networks=10.20.0.0/16"
+})
+class SecurityIntegrationTests {
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	BooksRepository booksRepository;
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	@Test
+	public void itShouldExportBooksToBearerOfToken() throws Exception {
+		String jwt = this.registerAndLogin("export@example.com", "Password1!");
+
+		MvcResult result = this.mockMvc.perform(get("/books/export")
+						.header(HttpHeaders.AUTHORIZATION, "Bearer " + jwt))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		// The async dispatch doesn't carry the token through JwtFilter again
+		String body = this.mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+
+		assertThat(body.split("\n")).hasSize((int) this.booksRepository.count());
+	}
+
+	@Test
+	public void itShouldRejectExportWithoutToken() throws Exception {
+		this.mockMvc.perform(get("/books/export"))
+				.andExpect(status().isForbidden());
+	}
+
+	@Test
+	public void itShouldServePrometheusScrapesFromScrapeNetworks() throws Exception {
+		this.mockMvc.perform(get("/actuator/prometheus").with(request -> {
+					request.setRemoteAddr("10.20.3.4");
+					return request;
+				}))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	public void itShouldRejectPrometheusScrapesFromOtherAddresses() throws Exception {
+		this.mockMvc.perform(get("/actuator/prometheus").with(request -> {
+					request.setRemoteAddr("203.0.113.7");
+					return request;
+				}))
+				.andExpect(status().isForbidden());
+		// MockMvc requests come from 127.0.0.1, which isn't in the configured networks either
+		this.mockMvc.perform(get("/actuator/prometheus"))
+				.andExpect(status().isForbidden());
+	}
+
+	private String registerAndLogin(String email, String password) throws Exception {
+		MvcResult register = this.mockMvc.perform(post("/auth/register")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(this.mapper.writeValueAsString(new RegisterUserDTO(email, password))))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		this.mockMvc.perform(asyncDispatch(register)).andExpect(status().isOk());
+		MvcResult login = this.mockMvc.perform(post("/auth/login")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(this.mapper.writeValueAsString(new LoginUserDTO(email, password))))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		MvcResult token = this.mockMvc.perform(asyncDispatch(login))
+				.andExpect(status().isOk())
+				.andReturn();
+		return JsonPath.read(token.getResponse().getContentAsString(), "$.token");
+	}
+}
@@ -0,0 +1,55 @@
+package com.example.booksAPI.auth;
+
+import com.example.booksAPI.exceptions.TooManyRequestsException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PasswordHashingExecutorUnitTests {
+    private final PasswordHashingExecutor executor = new PasswordHashingExecutor(1, 1);
+
+    @AfterEach
+    public void tearDown() {
+        executor.destroy();
+    }
+
+    @Test
+    public void itShouldRunTaskOnHashingThread() throws Exception {
+        String threadName = executor.submit(() -> Thread.currentThread().getName()).get();
+
+        assertTrue(threadName.startsWith("password-hashing-"));
+    }
+
+    @Test
+    public void itShouldRejectWhenPoolAndQueueAreFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> running = executor.submit(() -> {
+            started.countDown();
+            await(release);
+            return 1;
+        });
+        started.await();
+        CompletableFuture<Integer> queued = executor.submit(() -> 2);
+
+        assertThrows(TooManyRequestsException.class, () -> executor.submit(() -> 3));
+
+        release.countDown();
+        assertEquals(1, running.get());
+        assertEquals(2, queued.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
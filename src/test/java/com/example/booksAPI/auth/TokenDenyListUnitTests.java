@@ -0,0 +1,108 @@
+package com.example.booksAPI.auth;
+
+import com.example.booksAPI.dto.TokenCutoffDTO;
+import com.example.booksAPI.dto.VerifiedToken;
+import com.example.booksAPI.entities.RevokedToken;
+import com.example.booksAPI.repositories.RevokedTokensRepository;
+import com.example.booksAPI.repositories.UsersRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class TokenDenyListUnitTests {
+    @Mock
+    private RevokedTokensRepository revokedTokensRepository;
+
+    @Mock
+    private UsersRepository usersRepository;
+
+    @InjectMocks
+    private TokenDenyList tokenDenyList;
+
+    private static VerifiedToken token(int userId, String tokenId, Instant issuedAt) {
+        return new VerifiedToken("test@example.com", userId, tokenId, List.of(), issuedAt, issuedAt.plusSeconds(1800));
+    }
+
+    @Test
+    public void itShouldLoadRevokedTokensOnRefresh() {
+        Instant now = Instant.now();
+        when(revokedTokensRepository.findActiveTokenIds(any())).thenReturn(List.of("revoked"));
+        when(usersRepository.findTokenCutoffs()).thenReturn(List.of());
+
+        assertFalse(tokenDenyList.isReady());
+        tokenDenyList.refresh();
+
+        assertTrue(tokenDenyList.isReady());
+        assertTrue(tokenDenyList.isRevoked(token(1, "revoked", now)));
+        assertFalse(tokenDenyList.isRevoked(token(1, "active", now)));
+        verify(revokedTokensRepository).deleteExpired(any());
+    }
+
+    @Test
+    public void itShouldRejectTokensIssuedBeforeUserCutoff() {
+        Instant cutoff = Instant.now();
+        when(revokedTokensRepository.findActiveTokenIds(any())).thenReturn(List.of());
+        when(usersRepository.findTokenCutoffs()).thenReturn(List.of(new TokenCutoffDTO(1, cutoff)));
+
+        tokenDenyList.refresh();
+
+        assertTrue(tokenDenyList.isRevoked(token(1, "a", cutoff.minusSeconds(60))));
+        assertFalse(tokenDenyList.isRevoked(token(1, "b", cutoff)));
+        assertFalse(tokenDenyList.isRevoked(token(2, "c", cutoff.minusSeconds(60))));
+    }
+
+    @Test
+    public void itShouldKeepLocalRevocationUntilDatabaseReflectsIt() {
+        VerifiedToken token = token(1, "local", Instant.now());
+        when(revokedTokensRepository.findActiveTokenIds(any())).thenReturn(List.of());
+        when(usersRepository.findTokenCutoffs()).thenReturn(List.of());
+
+        tokenDenyList.revoke(token);
+        assertTrue(tokenDenyList.isRevoked(token));
+        verify(revokedTokensRepository).save(any(RevokedToken.class));
+
+        // A refresh that read the table before the revocation committed must not forget it
+        tokenDenyList.refresh();
+        assertTrue(tokenDenyList.isRevoked(token));
+    }
+
+    @Test
+    public void itShouldApplyLocalCutoffImmediately() {
+        Instant cutoff = Instant.now();
+
+        tokenDenyList.revokeIssuedBefore(1, cutoff);
+
+        verify(usersRepository).updateTokensValidAfter(1, cutoff);
+        assertTrue(tokenDenyList.isRevoked(token(1, "a", cutoff.minusSeconds(1))));
+    }
+
+    @Test
+    public void itShouldNotReportFalseNegativesFromBloomFilter() {
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.put("token-" + i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.mightContain("token-" + i));
+        }
+        int falsePositives = 0;
+        for (int i = 1000; i < 11000; i++) {
+            if (filter.mightContain("token-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300);
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.booksAPI.cache;
+
+import com.example.booksAPI.dto.BookDTO;
+import com.example.booksAPI.dto.BooksPage;
+import com.example.booksAPI.dto.PageRequestDTO;
+import com.example.booksAPI.enums.Publisher;
+import com.example.booksAPI.events.BooksChangedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CatalogResponseCacheUnitTests {
+    private final CatalogResponseCache cache = new CatalogResponseCache(new ObjectMapper(), 1024 * 1024);
+    private final BooksPage page = new BooksPage(List.of(new BookDTO(1, "Title 1", 2024, "Kamil", Publisher.POLLUB,
+            0, 0.0, List.of(0, 0, 0, 0, 0), null, 0L)), null);
+
+    @Test
+    public void itShouldLoadPageOnceForConcurrentRequests() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<CatalogResponseCache.CachedPage>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> this.cache.get(1, new PageRequestDTO(), false, () -> {
+                    loads.incrementAndGet();
+                    await(loading);
+                    return this.page;
+                })));
+            }
+            Thread.sleep(100);
+            loading.countDown();
+            CatalogResponseCache.CachedPage first = results.getFirst().get(5, TimeUnit.SECONDS);
+            for (Future<CatalogResponseCache.CachedPage> result : results) {
+                assertSame(first, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void itShouldReloadForNewCatalogVersionAndAfterWrites() {
+        AtomicInteger loads = new AtomicInteger();
+        PageRequestDTO request = new PageRequestDTO();
+
+        this.cache.get(1, request, false, () -> { loads.incrementAndGet(); return this.page; });
+        this.cache.get(1, request, false, () -> { loads.incrementAndGet(); return this.page; });
+        this.cache.get(2, request, false, () -> { loads.incrementAndGet(); return this.page; });
+        this.cache.onBooksChanged(BooksChangedEvent.deleted(1));
+        this.cache.get(2, request, false, () -> { loads.incrementAndGet(); return this.page; });
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void itShouldNotCacheFailedLoads() {
+        PageRequestDTO request = new PageRequestDTO();
+
+        assertThrows(IllegalStateException.class, () -> this.cache.get(1, request, false, () -> {
+            throw new IllegalStateException("Database unavailable");
+        }));
+        CatalogResponseCache.CachedPage cached = this.cache.get(1, request, false, () -> this.page);
+
+        assertEquals(this.cache.get(1, request, false, () -> null).getNextCursor(), cached.getNextCursor());
+        assertSame(cached, this.cache.get(1, request, false, () -> null));
+    }
+
+    @Test
+    public void itShouldFailWaitingRequestsWithTheLoadFailure() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<CatalogResponseCache.CachedPage>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> this.cache.get(1, new PageRequestDTO(), false, () -> {
+                    loads.incrementAndGet();
+                    await(loading);
+                    throw new IllegalStateException("Database unavailable");
+                })));
+            }
+            Thread.sleep(100);
+            loading.countDown();
+            for (Future<CatalogResponseCache.CachedPage> result : results) {
+                ExecutionException failure = assertThrows(ExecutionException.class,
+                        () -> result.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(IllegalStateException.class, failure.getCause());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+        assertSame(this.cache.get(1, new PageRequestDTO(), false, () -> this.page),
+                this.cache.get(1, new PageRequestDTO(), false, () -> null));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
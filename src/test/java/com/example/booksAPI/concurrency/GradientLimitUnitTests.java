@@ -0,0 +1,71 @@
+package com.example.booksAPI.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GradientLimitUnitTests {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    public void itShouldRejectOverLimit() {
+        GradientLimit limit = new GradientLimit(2, 1, 10, 1.5, 0.2);
+
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+        limit.release();
+        assertTrue(limit.tryAcquire());
+    }
+
+    @Test
+    public void itShouldGrowWhileLatencyHolds() {
+        GradientLimit limit = new GradientLimit(10, 5, 100, 1.5, 0.2);
+
+        saturate(limit, FAST, 20);
+
+        assertTrue(limit.getLimit() > 10);
+        assertEquals(0, limit.getInFlight());
+    }
+
+    @Test
+    public void itShouldShrinkWhenLatencyRises() {
+        GradientLimit limit = new GradientLimit(50, 5, 100, 1.5, 0.2);
+        saturate(limit, FAST, 5);
+        int before = limit.getLimit();
+
+        saturate(limit, SLOW, 10);
+
+        assertTrue(limit.getLimit() < before);
+        assertTrue(limit.getLimit() >= 5);
+    }
+
+    @Test
+    public void itShouldNotGrowWhenMostOfLimitIsUnused() {
+        GradientLimit limit = new GradientLimit(10, 5, 100, 1.5, 0.2);
+
+        for (int i = 0; i < 100; i++) {
+            limit.tryAcquire();
+            limit.release(FAST);
+        }
+
+        assertEquals(10, limit.getLimit());
+    }
+
+    private static void saturate(GradientLimit limit, long rttNanos, int rounds) {
+        for (int i = 0; i < rounds; i++) {
+            int acquired = 0;
+            while (limit.tryAcquire()) {
+                acquired++;
+            }
+            for (int j = 0; j < acquired; j++) {
+                limit.release(rttNanos);
+            }
+        }
+    }
+}
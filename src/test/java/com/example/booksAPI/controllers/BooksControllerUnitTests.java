@@ -1,10 +1,14 @@
 package com.example.booksAPI.controllers;
 
+import com.example.booksAPI.cache.CatalogResponseCache;
 import com.example.booksAPI.dto.*;
-import com.example.booksAPI.entities.Book;
+import com.example.booksAPI.enums.ImportFormat;
 import com.example.booksAPI.enums.Publisher;
 import com.example.booksAPI.filters.JwtFilter;
+import com.example.booksAPI.services.BooksExportService;
+import com.example.booksAPI.services.BooksImportService;
 import com.example.booksAPI.services.BooksService;
+import com.example.booksAPI.services.CatalogVersionService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,17 +16,29 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -30,6 +46,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @WebMvcTest(BooksController.class)
 @AutoConfigureMockMvc(addFilters = false)
+@Import(CatalogResponseCache.class)
 public class BooksControllerUnitTests {
     @Autowired
     private MockMvc mockMvc;
@@ -40,27 +57,110 @@ public class BooksControllerUnitTests {
     @MockBean
     private BooksService booksService;
 
+    @MockBean
+    private BooksExportService booksExportService;
+
+    @MockBean
+    private BooksImportService booksImportService;
+
+    @MockBean
+    private CatalogVersionService catalogVersionService;
+
     @MockBean
     private JwtFilter jwtFilter;
 
-    private List<Book> books;
+    @Autowired
+    private CatalogResponseCache catalogResponseCache;
+
+    private List<BookDTO> books;
     private final SuccessResponse successResponse = new SuccessResponse("");
 
     @BeforeEach
     public void setUp() {
-        this.books = Arrays.asList(new Book(1, "Title 1", 2024, "Kamil", Publisher.POLLUB,
-                        new ArrayList<>()),
-                new Book(2, "Title 2", 2023, "Kamil", Publisher.POLLUB, new ArrayList<>()));
+        this.catalogResponseCache.invalidateAll();
+        this.books = Arrays.asList(new BookDTO(1, "Title 1", 2024, "Kamil", Publisher.POLLUB, 1, 5.0,
+                        List.of(0, 0, 0, 0, 1), null, 3L),
+                new BookDTO(2, "Title 2", 2023, "Kamil", Publisher.POLLUB, 0, 0.0,
+                        List.of(0, 0, 0, 0, 0), null, 0L));
     }
 
 
     @Test
     public void testGetAllBooks() throws Exception {
-        when(this.booksService.getAllBooks()).thenReturn(this.books);
+        when(this.booksService.getAllBooks(any(PageRequestDTO.class), eq(false))).thenReturn(new BooksPage(this.books, null));
         this.mockMvc.perform(get("/books"))
                 .andExpect(jsonPath("$", hasSize(2)))
                 .andExpect(jsonPath("$[0].title").value("Title 1"))
-                .andExpect(jsonPath("$[1].title").value("Title 2"));
+                .andExpect(jsonPath("$[1].title").value("Title 2"))
+                .andExpect(jsonPath("$[0].rating_count").value(1))
+                .andExpect(jsonPath("$[0].average_rating").value(5.0))
+                .andExpect(jsonPath("$[0].rating_histogram[4]").value(1))
+                .andExpect(jsonPath("$[0].ratings").doesNotExist())
+                .andExpect(header().doesNotExist(BooksController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    public void testGetAllBooks_NextCursor() throws Exception {
+        when(this.booksService.getAllBooks(any(PageRequestDTO.class), eq(false))).thenReturn(new BooksPage(this.books, "abc"));
+        this.mockMvc.perform(get("/books?limit=2&sort=TITLE&order=DESC"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(BooksController.NEXT_CURSOR_HEADER, "abc"));
+    }
+
+    @Test
+    public void testGetAllBooks_IncludeRatings() throws Exception {
+        BookDTO book = new BookDTO(1, "Title 1", 2024, "Kamil", Publisher.POLLUB, 1, 5.0,
+                List.of(0, 0, 0, 0, 1), List.of(new RatingDTO(1, 7, 5)), 3L);
+        when(this.booksService.getAllBooks(any(PageRequestDTO.class), eq(true)))
+                .thenReturn(new BooksPage(List.of(book), null));
+        this.mockMvc.perform(get("/books?includeRatings=true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].ratings[0].id").value(7))
+                .andExpect(jsonPath("$[0].ratings[0].score").value(5))
+                .andExpect(jsonPath("$[0].ratings[0].bookId").doesNotExist());
+    }
+
+    @Test
+    public void testGetAllBooks_InvalidPageParameters() throws Exception {
+        this.mockMvc.perform(get("/books?limit=0&sort=AUTHOR"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.limit").value("must be in range 1-500"))
+                .andExpect(jsonPath("$.sort").value("must be any of: 'ID', 'TITLE', 'YEAR', 'RATING'"));
+    }
+
+    @Test
+    public void testExportBooks() throws Exception {
+        doAnswer(invocation -> {
+            invocation.getArgument(0, OutputStream.class).write("{\"id\":1}\n".getBytes());
+            return null;
+        }).when(this.booksExportService).exportBooks(any(OutputStream.class));
+        MvcResult result = this.mockMvc.perform(get("/books/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        this.mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"id\":1}\n"));
+    }
+
+    @Test
+    public void testImportBooks() throws Exception {
+        when(this.booksImportService.importBooks(any(InputStream.class), eq(ImportFormat.CSV)))
+                .thenReturn(new ImportResultDTO(1, 1, false, List.of(new ImportErrorDTO(3, "year: it is not a valid year"))));
+        this.mockMvc.perform(post("/books/import")
+                        .contentType("text/csv")
+                        .content("title,year,author,publisher\nA,2000,B,UMCS\nC,3000,D,UMCS\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(3));
+    }
+
+    @Test
+    public void testImportBooks_UnsupportedMediaType() throws Exception {
+        this.mockMvc.perform(post("/books/import")
+                        .contentType(MediaType.APPLICATION_XML)
+                        .content("<books/>"))
+                .andExpect(status().isUnsupportedMediaType());
     }
 
     @Test
@@ -70,6 +170,64 @@ public class BooksControllerUnitTests {
                 .andExpect(jsonPath("$.title").value("Title 1"));
     }
 
+    @Test
+    public void testGetBookByID_ReturnsVersionETag() throws Exception {
+        when(this.booksService.getBookByID(1)).thenReturn(this.books.getFirst());
+        this.mockMvc.perform(get("/books/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(jsonPath("$.version").doesNotExist());
+    }
+
+    @Test
+    public void testGetBookByID_NotModified() throws Exception {
+        when(this.booksService.getBookVersion(1)).thenReturn(Optional.of(3L));
+        this.mockMvc.perform(get("/books/1").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(content().string(""));
+        verify(this.booksService, never()).getBookByID(anyInt());
+    }
+
+    @Test
+    public void testGetAllBooks_NotModified() throws Exception {
+        when(this.catalogVersionService.current()).thenReturn(7L);
+        this.mockMvc.perform(get("/books").header(HttpHeaders.IF_NONE_MATCH, "W/\"catalog-7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"catalog-7\""));
+        verify(this.booksService, never()).getAllBooks(any(PageRequestDTO.class), anyBoolean());
+    }
+
+    @Test
+    public void testGetAllBooks_StaleETag() throws Exception {
+        when(this.catalogVersionService.current()).thenReturn(8L);
+        when(this.booksService.getAllBooks(any(PageRequestDTO.class), eq(false)))
+                .thenReturn(new BooksPage(this.books, null));
+        this.mockMvc.perform(get("/books").header(HttpHeaders.IF_NONE_MATCH, "\"catalog-7\""))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, "W/\"catalog-8\""))
+                .andExpect(jsonPath("$", hasSize(2)));
+    }
+
+    @Test
+    public void testGetAllBooks_ServedFromResponseCache() throws Exception {
+        when(this.booksService.getAllBooks(any(PageRequestDTO.class), eq(false)))
+                .thenReturn(new BooksPage(this.books, "next"));
+        byte[] compressed = this.mockMvc.perform(get("/books").header(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0.8"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(header().string(BooksController.NEXT_CURSOR_HEADER, "next"))
+                .andReturn().getResponse().getContentAsByteArray();
+        this.mockMvc.perform(get("/books").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(header().string(BooksController.NEXT_CURSOR_HEADER, "next"))
+                .andExpect(content().bytes(new GZIPInputStream(new ByteArrayInputStream(compressed)).readAllBytes()))
+                .andExpect(jsonPath("$[0].title").value("Title 1"));
+        verify(this.booksService, times(1)).getAllBooks(any(PageRequestDTO.class), eq(false));
+    }
+
     @Test
     public void testGetBookByID_InvalidID() throws Exception {
         this.mockMvc.perform(get("/books/a")).andExpect(status().isBadRequest())
@@ -182,12 +340,28 @@ public class BooksControllerUnitTests {
 
     @Test
     public void testGetFilteredBooks_ValidParameters() throws Exception {
-        when(this.booksService.getFilteredBooks("ff", null, null, null)).thenReturn(this.books);
-        this.mockMvc.perform(get("/books/filter?title=ff"))
+        BookFilterDTO filter = new BookFilterDTO("ff", null, null, "1990", "2000", List.of("UMCS", "UP"), null, "3.5");
+        when(this.booksService.getFilteredBooks(eq(filter), any(PageRequestDTO.class), eq(false)))
+                .thenReturn(new BooksPage(this.books, null));
+        this.mockMvc.perform(get("/books/filter?title=ff&yearFrom=1990&yearTo=2000&publisher=UMCS,UP&minRating=3.5"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].title").value(this.books.getFirst().getTitle()));
     }
 
+    @Test
+    public void testGetFilteredBooks_InvalidPublisher() throws Exception {
+        this.mockMvc.perform(get("/books/filter?publisher=UP&publisher=BENC"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.messages[0]").value("Invalid publisher"));
+    }
+
+    @Test
+    public void testGetFilteredBooks_InvalidMinRating() throws Exception {
+        this.mockMvc.perform(get("/books/filter?minRating=5.5"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.messages[0]").value("Minimum rating must be in range 1-5"));
+    }
+
     @Test
     public void testGetFilteredBooks_InvalidYear() throws Exception {
         this.mockMvc.perform(get("/books/filter?year=ff"))
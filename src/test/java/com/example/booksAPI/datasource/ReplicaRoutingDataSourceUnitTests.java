@@ -0,0 +1,98 @@
+package com.example.booksAPI.datasource;
+
+import com.example.booksAPI.enums.ReplicaSelection;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ReplicaRoutingDataSourceUnitTests {
+    private final DataSource primary = mock(DataSource.class);
+    private final HikariDataSource first = mock(HikariDataSource.class);
+    private final HikariDataSource second = mock(HikariDataSource.class);
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection firstConnection = mock(Connection.class);
+    private final Connection secondConnection = mock(Connection.class);
+
+    @AfterEach
+    public void tearDown() {
+        ReadRoutingContext.end();
+    }
+
+    @Test
+    public void itShouldAlternateReplicasRoundRobin() throws Exception {
+        ReplicaRoutingDataSource dataSource = this.dataSource(ReplicaSelection.ROUND_ROBIN);
+
+        assertSame(this.firstConnection, dataSource.getConnection());
+        assertSame(this.secondConnection, dataSource.getConnection());
+        assertSame(this.firstConnection, dataSource.getConnection());
+    }
+
+    @Test
+    public void itShouldPickReplicaWithFewestActiveConnections() throws Exception {
+        this.activeConnections(this.first, 4);
+        this.activeConnections(this.second, 1);
+        ReplicaRoutingDataSource dataSource = this.dataSource(ReplicaSelection.LEAST_LOADED);
+
+        assertSame(this.secondConnection, dataSource.getConnection());
+        assertSame(this.secondConnection, dataSource.getConnection());
+    }
+
+    @Test
+    public void itShouldKeepOneReplicaForWholeRequest() throws Exception {
+        ReplicaRoutingDataSource dataSource = this.dataSource(ReplicaSelection.ROUND_ROBIN);
+        ReadRoutingContext.begin(false);
+
+        assertSame(this.firstConnection, dataSource.getConnection());
+        assertSame(this.firstConnection, dataSource.getConnection());
+    }
+
+    @Test
+    public void itShouldReadFromPrimaryAfterWrite() throws Exception {
+        ReplicaRoutingDataSource dataSource = this.dataSource(ReplicaSelection.ROUND_ROBIN);
+        ReadRoutingContext.begin(true);
+
+        assertSame(this.primaryConnection, dataSource.getConnection());
+    }
+
+    @Test
+    public void itShouldFallBackToPrimaryWhenReplicaIsDown() throws Exception {
+        ReplicaRoutingDataSource dataSource = this.dataSource(ReplicaSelection.ROUND_ROBIN);
+        when(this.first.getConnection()).thenThrow(new SQLException("Connection refused"));
+
+        assertSame(this.primaryConnection, dataSource.getConnection());
+    }
+
+    @Test
+    public void itShouldRouteConnectionsWithCredentials() throws Exception {
+        ReplicaRoutingDataSource dataSource = this.dataSource(ReplicaSelection.ROUND_ROBIN);
+        when(this.first.getConnection("reader", "secret")).thenReturn(this.firstConnection);
+        when(this.primary.getConnection("reader", "secret")).thenReturn(this.primaryConnection);
+
+        assertSame(this.firstConnection, dataSource.getConnection("reader", "secret"));
+        ReadRoutingContext.begin(true);
+        assertSame(this.primaryConnection, dataSource.getConnection("reader", "secret"));
+    }
+
+    private ReplicaRoutingDataSource dataSource(ReplicaSelection selection) throws SQLException {
+        when(this.primary.getConnection()).thenReturn(this.primaryConnection);
+        when(this.first.getConnection()).thenReturn(this.firstConnection);
+        when(this.second.getConnection()).thenReturn(this.secondConnection);
+        return new ReplicaRoutingDataSource(this.primary, List.of(this.first, this.second), selection);
+    }
+
+    private void activeConnections(HikariDataSource replica, int active) {
+        HikariPoolMXBean pool = mock(HikariPoolMXBean.class);
+        when(pool.getActiveConnections()).thenReturn(active);
+        when(replica.getHikariPoolMXBean()).thenReturn(pool);
+    }
+}
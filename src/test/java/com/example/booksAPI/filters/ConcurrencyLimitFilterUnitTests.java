@@ -0,0 +1,73 @@
+package com.example.booksAPI.filters;
+
+import com.example.booksAPI.concurrency.GradientLimit;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class ConcurrencyLimitFilterUnitTests {
+    private final GradientLimit readLimit = new GradientLimit(1, 1, 10, 1.5, 0.2);
+    private final GradientLimit writeLimit = new GradientLimit(1, 1, 10, 1.5, 0.2);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(this.readLimit, this.writeLimit,
+            Duration.ofSeconds(2), new ObjectMapper(), this.meterRegistry);
+    private final FilterChain filterChain = mock(FilterChain.class);
+
+    @Test
+    public void itShouldRejectReadsOverLimitWith503() throws Exception {
+        this.readLimit.tryAcquire();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        this.filter.doFilter(new MockHttpServletRequest("GET", "/books"), response, this.filterChain);
+
+        verify(this.filterChain, never()).doFilter(any(), any());
+        assertEquals(503, response.getStatus());
+        assertEquals("2", response.getHeader("Retry-After"));
+        assertTrue(response.getContentAsString().contains("\"code\":\"503\""));
+        assertEquals(1, this.meterRegistry.get(ConcurrencyLimitFilter.REJECTED_METRIC).tag("type", "read")
+                .counter().count());
+    }
+
+    @Test
+    public void itShouldLimitWritesSeparatelyFromReads() throws Exception {
+        this.readLimit.tryAcquire();
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/books");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        this.filter.doFilter(request, response, this.filterChain);
+
+        verify(this.filterChain).doFilter(request, response);
+        assertEquals(200, response.getStatus());
+        assertEquals(0, this.writeLimit.getInFlight());
+    }
+
+    @Test
+    public void itShouldNotLimitActuator() throws Exception {
+        this.readLimit.tryAcquire();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/actuator/health");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        this.filter.doFilter(request, response, this.filterChain);
+
+        verify(this.filterChain).doFilter(request, response);
+    }
+
+    @Test
+    public void itShouldExposeLimitsAsGauges() {
+        assertEquals(1, this.meterRegistry.get(ConcurrencyLimitFilter.LIMIT_METRIC).tag("type", "write")
+                .gauge().value());
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.booksAPI.filters;
+
+import com.example.booksAPI.auth.AuthenticatedUser;
+import com.example.booksAPI.auth.TokenDenyList;
+import com.example.booksAPI.dto.VerifiedToken;
+import com.example.booksAPI.entities.User;
+import com.example.booksAPI.services.JwtService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class JwtFilterUnitTests {
+    @Mock
+    private JwtService jwtService;
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    @Mock
+    private TokenDenyList tokenDenyList;
+
+    @Mock
+    private FilterChain filterChain;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private JwtFilter jwtFilter;
+
+    private MockHttpServletRequest request;
+    private final VerifiedToken token = new VerifiedToken("test@example.com", 7, "jti", List.of(),
+            Instant.now(), Instant.now().plusSeconds(1800));
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(jwtFilter, "statelessAuth", true);
+        request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer jwt");
+        when(jwtService.verify("jwt")).thenReturn(token);
+    }
+
+    @AfterEach
+    public void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void itShouldAuthenticateFromClaimsWithoutDatabase() throws Exception {
+        when(tokenDenyList.isReady()).thenReturn(true);
+
+        jwtFilter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertInstanceOf(AuthenticatedUser.class, authentication.getPrincipal());
+        assertEquals(7, ((AuthenticatedUser) authentication.getPrincipal()).getId());
+        assertSame(token, authentication.getCredentials());
+        verify(userDetailsService, never()).loadUserByUsername(any());
+        verify(filterChain).doFilter(any(), any());
+        assertEquals(1, meterRegistry.timer(JwtFilter.AUTHENTICATION_METRIC, "result", "authenticated").count());
+    }
+
+    @Test
+    public void itShouldNotAuthenticateRevokedToken() throws Exception {
+        when(tokenDenyList.isRevoked(token)).thenReturn(true);
+
+        jwtFilter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(filterChain).doFilter(any(), any());
+        assertEquals(1, meterRegistry.timer(JwtFilter.AUTHENTICATION_METRIC, "result", "rejected").count());
+    }
+
+    @Test
+    public void itShouldLoadUserWhenStatelessModeDisabled() throws Exception {
+        ReflectionTestUtils.setField(jwtFilter, "statelessAuth", false);
+        User user = new User();
+        user.setEmail("test@example.com");
+        when(userDetailsService.loadUserByUsername("test@example.com")).thenReturn(user);
+        when(jwtService.isTokenValid(token, user)).thenReturn(true);
+
+        jwtFilter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        assertSame(user, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.booksAPI.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VirtualThreadPinningMonitorUnitTests {
+    private final Object monitor = new Object();
+
+    @Test
+    public void itShouldCountVirtualThreadsBlockingInsideSynchronized() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        VirtualThreadPinningMonitor pinningMonitor = new VirtualThreadPinningMonitor(meterRegistry,
+                Duration.ofMillis(10));
+        pinningMonitor.start();
+        try {
+            Thread.ofVirtual().start(this::sleepWhileHoldingMonitor).join();
+            long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (pinningMonitor.getPinnedCount() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+        } finally {
+            pinningMonitor.stop();
+        }
+
+        assertTrue(pinningMonitor.getPinnedCount() >= 1);
+        assertEquals(pinningMonitor.getPinnedCount(),
+                meterRegistry.counter(VirtualThreadPinningMonitor.METRIC_NAME).count());
+        assertFalse(pinningMonitor.isRunning());
+    }
+
+    private void sleepWhileHoldingMonitor() {
+        synchronized (this.monitor) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.booksAPI.ranking;
+
+import com.example.booksAPI.dto.BookDTO;
+import com.example.booksAPI.entities.Book;
+import com.example.booksAPI.enums.Publisher;
+import com.example.booksAPI.events.BooksChangedEvent;
+import com.example.booksAPI.repositories.BooksRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BookLeaderboardUnitTests {
+    @Mock
+    BooksRepository booksRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    BookLeaderboard bookLeaderboard;
+
+    @BeforeEach
+    public void setUp() {
+        this.bookLeaderboard = new BookLeaderboard(this.booksRepository, this.transactionManager, 3.0, 10);
+    }
+
+    @Test
+    public void testTop_OrderedByBayesianAverage() {
+        this.rebuild();
+
+        assertThat(ids(this.bookLeaderboard.top(10, 0, null))).containsExactly(4, 2, 1, 3);
+    }
+
+    @Test
+    public void testTop_MinVotesAndPublisher() {
+        this.rebuild();
+
+        assertThat(ids(this.bookLeaderboard.top(10, 10, null))).containsExactly(4, 2);
+        assertThat(ids(this.bookLeaderboard.top(10, 0, Publisher.UMCS))).containsExactly(4, 3);
+        assertThat(ids(this.bookLeaderboard.top(1, 0, Publisher.POLLUB))).containsExactly(2);
+    }
+
+    @Test
+    public void testOnBooksChanged_MovesRatedBook() {
+        this.rebuild();
+
+        this.bookLeaderboard.onBooksChanged(BooksChangedEvent.saved(dto(3, Publisher.UMCS, 50, 5.0, 1L)));
+
+        assertThat(ids(this.bookLeaderboard.top(10, 0, null))).containsExactly(3, 4, 2, 1);
+        assertThat(ids(this.bookLeaderboard.top(10, 0, Publisher.UMCS))).containsExactly(3, 4);
+        assertThat(this.bookLeaderboard.top(1, 0, null).getFirst().getRating_count()).isEqualTo(50);
+    }
+
+    @Test
+    public void testOnBooksChanged_IgnoresStaleVersions() {
+        this.rebuild();
+
+        this.bookLeaderboard.onBooksChanged(BooksChangedEvent.saved(dto(1, Publisher.POLLUB, 40, 5.0, 3L)));
+        this.bookLeaderboard.onBooksChanged(BooksChangedEvent.saved(dto(1, Publisher.POLLUB, 3, 5.0, 2L)));
+
+        assertThat(ids(this.bookLeaderboard.top(10, 0, null))).containsExactly(1, 4, 2, 3);
+    }
+
+    @Test
+    public void testOnBooksChanged_DeletedBookStaysRemoved() {
+        this.rebuild();
+
+        this.bookLeaderboard.onBooksChanged(BooksChangedEvent.deleted(4));
+        this.bookLeaderboard.onBooksChanged(BooksChangedEvent.saved(dto(4, Publisher.UMCS, 21, 4.5, 5L)));
+
+        assertThat(ids(this.bookLeaderboard.top(10, 0, null))).containsExactly(2, 1, 3);
+        assertThat(ids(this.bookLeaderboard.top(10, 0, Publisher.UMCS))).containsExactly(3);
+    }
+
+    @Test
+    public void testTop_QueriesRepositoryBeforeRebuild() {
+        when(this.booksRepository.findTopRatedByPublisher(5, Publisher.POLLUB, 3.0, 10, PageRequest.of(0, 3)))
+                .thenReturn(List.of(book(2, Publisher.POLLUB, 100, 4.0)));
+        when(this.booksRepository.findTopRated(5, 3.0, 10, PageRequest.of(0, 3)))
+                .thenReturn(List.of(book(4, Publisher.UMCS, 20, 4.5), book(2, Publisher.POLLUB, 100, 4.0)));
+
+        assertThat(ids(this.bookLeaderboard.top(3, 5, Publisher.POLLUB))).containsExactly(2);
+        assertThat(ids(this.bookLeaderboard.top(3, 5, null))).containsExactly(4, 2);
+    }
+
+    // Bayesian averages with 10 votes of 3.0: 3.33, 3.91, 3.0 and 4.0
+    private void rebuild() {
+        when(this.booksRepository.streamSummaries()).thenReturn(Stream.of(
+                dto(1, Publisher.POLLUB, 2, 5.0, 0L),
+                dto(2, Publisher.POLLUB, 100, 4.0, 0L),
+                dto(3, Publisher.UMCS, 0, 0.0, 0L),
+                dto(4, Publisher.UMCS, 20, 4.5, 0L)));
+        this.bookLeaderboard.rebuild();
+    }
+
+    private static Book book(int id, Publisher publisher, int ratingCount, double averageRating) {
+        Book book = new Book(id, "Title " + id, 2000, "Author " + id, publisher, List.of());
+        book.setRating_count(ratingCount);
+        book.setAverage_rating(averageRating);
+        book.setVersion(0L);
+        return book;
+    }
+
+    private static BookDTO dto(int id, Publisher publisher, int ratingCount, double averageRating, long version) {
+        return new BookDTO(id, "Title " + id, 2000, "Author " + id, publisher, ratingCount, averageRating,
+                List.of(0, 0, 0, 0, ratingCount), null, version);
+    }
+
+    private static List<Integer> ids(List<BookDTO> books) {
+        return books.stream().map(BookDTO::getId).toList();
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.booksAPI.search;
+
+import com.example.booksAPI.dto.BookDTO;
+import com.example.booksAPI.dto.BookColumnRowDTO;
+import com.example.booksAPI.dto.BookFacetsDTO;
+import com.example.booksAPI.enums.Publisher;
+import com.example.booksAPI.events.BooksChangedEvent;
+import com.example.booksAPI.repositories.BooksRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BookFacetIndexUnitTests {
+    private static final ColumnFilter NO_FILTER = ColumnFilter.of(null, null, null, null, null, null);
+
+    @Mock
+    BooksRepository booksRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    ColumnarCatalog columnarCatalog;
+
+    BookFacetIndex bookFacetIndex;
+
+    @BeforeEach
+    public void setUp() {
+        this.columnarCatalog = new ColumnarCatalog(this.booksRepository, this.transactionManager, 4, 1_000_000);
+        this.bookFacetIndex = new BookFacetIndex(this.columnarCatalog);
+    }
+
+    @Test
+    public void testCount_AllBooks() {
+        this.rebuild();
+
+        BookFacetsDTO facets = this.bookFacetIndex.count(null, NO_FILTER).orElseThrow();
+
+        assertThat(facets.getTotal()).isEqualTo(5);
+        assertThat(facets.getPublishers()).contains(entry(Publisher.POLLUB, 3), entry(Publisher.UMCS, 2));
+        assertThat(facets.getDecades()).containsExactly(entry(1920, 2), entry(1930, 1), entry(1950, 1),
+                entry(2010, 1));
+        assertThat(facets.getRatings()).containsExactly(entry(1, 1), entry(2, 0), entry(3, 0), entry(4, 2),
+                entry(5, 2));
+    }
+
+    @Test
+    public void testCount_Filters() {
+        this.rebuild();
+
+        assertThat(this.bookFacetIndex.count(null, ColumnFilter.of(null, 1920, 1940, null, null, null))
+                .orElseThrow().getTotal()).isEqualTo(3);
+        assertThat(this.bookFacetIndex.count(null, ColumnFilter.of(null, null, null, List.of(Publisher.UMCS),
+                5, null)).orElseThrow().getDecades()).containsExactly(entry(1950, 1));
+        assertThat(this.bookFacetIndex.count(null, ColumnFilter.of(1937, null, null, null, null, 4.5))
+                .orElseThrow().getTotal()).isEqualTo(0);
+        assertThat(this.bookFacetIndex.count(null, ColumnFilter.of(null, null, null, null, null, 4.5))
+                .orElseThrow().getPublishers()).contains(entry(Publisher.POLLUB, 1), entry(Publisher.UMCS, 1));
+    }
+
+    @Test
+    public void testCount_TextMatches() {
+        this.rebuild();
+
+        BookFacetsDTO facets = this.bookFacetIndex.count(new int[]{2, 4, 9, 20000}, NO_FILTER).orElseThrow();
+
+        assertThat(facets.getTotal()).isEqualTo(2);
+        assertThat(facets.getDecades()).containsExactly(entry(1920, 1), entry(1950, 1));
+        assertThat(this.bookFacetIndex.count(new int[]{1, 2, 3}, ColumnFilter.of(null, null, null, null, 4, null))
+                .orElseThrow().getTotal()).isEqualTo(1);
+    }
+
+    @Test
+    public void testOnBooksChanged() {
+        this.rebuild();
+
+        this.columnarCatalog.onBooksChanged(new BooksChangedEvent(
+                List.of(new BookDTO(3, "Title", 1937, "Author", Publisher.UMCS, 1, 2.0, List.of(0, 1, 0, 0, 0),
+                        null, 1L)),
+                List.of(5)));
+
+        BookFacetsDTO facets = this.bookFacetIndex.count(null, NO_FILTER).orElseThrow();
+        assertThat(facets.getTotal()).isEqualTo(4);
+        assertThat(facets.getPublishers()).contains(entry(Publisher.POLLUB, 2), entry(Publisher.UMCS, 2));
+        assertThat(facets.getRatings()).contains(entry(2, 1), entry(5, 2));
+        assertThat(facets.getDecades()).doesNotContainKey(2010);
+    }
+
+    @Test
+    public void testCount_EmptyBeforeRebuild() {
+        assertThat(this.bookFacetIndex.count(null, ColumnFilter.of(null, null, 1940, null, null, null))).isEmpty();
+        verifyNoInteractions(this.booksRepository);
+    }
+
+    private void rebuild() {
+        when(this.booksRepository.streamColumnRows()).thenReturn(rows());
+        this.columnarCatalog.rebuild();
+    }
+
+    private static Stream<BookColumnRowDTO> rows() {
+        return Stream.of(
+                new BookColumnRowDTO(1, Publisher.POLLUB, 1925, "Author", 5.0, 0, 0, 0, 0, 2),
+                new BookColumnRowDTO(2, Publisher.POLLUB, 1922, "Author", 0.0, 0, 0, 0, 0, 0),
+                new BookColumnRowDTO(3, Publisher.POLLUB, 1937, "Author", 4.0, 0, 0, 0, 3, 0),
+                new BookColumnRowDTO(4, Publisher.UMCS, 1951, "Author", 4.5, 0, 0, 0, 1, 1),
+                new BookColumnRowDTO(5, Publisher.UMCS, 2015, "Author", 1.0, 1, 0, 0, 0, 0));
+    }
+}
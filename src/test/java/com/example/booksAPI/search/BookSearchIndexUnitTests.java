@@ -0,0 +1,100 @@
+package com.example.booksAPI.search;
+
+import com.example.booksAPI.dto.BookDTO;
+import com.example.booksAPI.dto.BookTextDTO;
+import com.example.booksAPI.enums.Publisher;
+import com.example.booksAPI.events.BooksChangedEvent;
+import com.example.booksAPI.repositories.BooksRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BookSearchIndexUnitTests {
+    @Mock
+    BooksRepository booksRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    BookSearchIndex bookSearchIndex;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(this.bookSearchIndex, "maxCandidates", 4);
+        when(this.booksRepository.streamTexts()).thenReturn(Stream.of(
+                new BookTextDTO(1, "The Great Gatsby", "F. Scott Fitzgerald"),
+                new BookTextDTO(2, "The Catcher in the Rye", "J.D. Salinger"),
+                new BookTextDTO(3, "The Hobbit", "J.R.R. Tolkien"),
+                new BookTextDTO(4, "Brave New World", "Aldous Huxley"),
+                new BookTextDTO(5, "Ulysses", "James Joyce")));
+        this.bookSearchIndex.rebuild();
+    }
+
+    @Test
+    public void testFindIds_Substring() {
+        assertThat(this.bookSearchIndex.findIds("the", null)).hasValueSatisfying(ids ->
+                assertThat(ids).containsExactly(1, 2, 3));
+        assertThat(this.bookSearchIndex.findIds("ATCH", null)).hasValueSatisfying(ids ->
+                assertThat(ids).containsExactly(2));
+        assertThat(this.bookSearchIndex.findIds("e G", null)).hasValueSatisfying(ids ->
+                assertThat(ids).containsExactly(1));
+    }
+
+    @Test
+    public void testFindIds_ShortQuery() {
+        assertThat(this.bookSearchIndex.findIds("ss", null)).hasValueSatisfying(ids ->
+                assertThat(ids).containsExactly(5));
+        assertThat(this.bookSearchIndex.findIds("e ", null)).hasValueSatisfying(ids ->
+                assertThat(ids).containsExactly(1, 2, 3, 4));
+    }
+
+    @Test
+    public void testFindIds_TrigramsInWrongOrder() {
+        assertThat(this.bookSearchIndex.findIds("thehob", null)).hasValueSatisfying(ids ->
+                assertThat(ids).isEmpty());
+    }
+
+    @Test
+    public void testFindIds_TitleAndAuthor() {
+        assertThat(this.bookSearchIndex.findIds("the", "j.")).hasValueSatisfying(ids ->
+                assertThat(ids).containsExactly(2, 3));
+    }
+
+    @Test
+    public void testFindIds_TooManyCandidates() {
+        assertThat(this.bookSearchIndex.findIds("e", null)).isEqualTo(Optional.empty());
+    }
+
+    @Test
+    public void testFindIds_NoTextPredicate() {
+        assertThat(this.bookSearchIndex.findIds(null, "")).isEqualTo(Optional.empty());
+    }
+
+    @Test
+    public void testOnBooksChanged() {
+        this.bookSearchIndex.onBooksChanged(new BooksChangedEvent(
+                List.of(new BookDTO(3, "Silmarillion", 1977, "J.R.R. Tolkien", Publisher.UP, 0, 0.0, null, null, 0L)),
+                List.of(1)));
+        this.bookSearchIndex.onBooksChanged(BooksChangedEvent.saved(
+                new BookDTO(6, "The Hobbit", 1937, "J.R.R. Tolkien", Publisher.UP, 0, 0.0, null, null, 0L)));
+
+        assertThat(this.bookSearchIndex.findIds("the", null)).hasValueSatisfying(ids ->
+                assertThat(ids).containsExactly(2, 6));
+        assertThat(this.bookSearchIndex.findIds("silma", "tolkien")).hasValueSatisfying(ids ->
+                assertThat(ids).containsExactly(3));
+    }
+}
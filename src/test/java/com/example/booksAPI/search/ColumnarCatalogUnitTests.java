@@ -0,0 +1,154 @@
+package com.example.booksAPI.search;
+
+import com.example.booksAPI.dto.BookColumnRowDTO;
+import com.example.booksAPI.dto.BookDTO;
+import com.example.booksAPI.enums.Publisher;
+import com.example.booksAPI.events.BooksChangedEvent;
+import com.example.booksAPI.repositories.BooksRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+import static org.springframework.transaction.support.TransactionSynchronization.STATUS_COMMITTED;
+
+@ExtendWith(MockitoExtension.class)
+public class ColumnarCatalogUnitTests {
+    @Mock
+    BooksRepository booksRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    ColumnarCatalog columnarCatalog;
+
+    @BeforeEach
+    public void setUp() {
+        this.columnarCatalog = new ColumnarCatalog(this.booksRepository, this.transactionManager, 4, 1_000_000);
+    }
+
+    @Test
+    public void testFindIds_Filters() {
+        this.rebuild();
+
+        assertThat(this.columnarCatalog.findIds(ColumnFilter.of(null, 1920, 1940, null, null, null), null))
+                .hasValueSatisfying(ids -> assertThat(ids).containsExactly(1, 2, 3));
+        assertThat(this.columnarCatalog.findIds(ColumnFilter.of(null, null, 1940, null, null, null), null))
+                .hasValueSatisfying(ids -> assertThat(ids).containsExactly(1, 2, 3));
+        assertThat(this.columnarCatalog.findIds(ColumnFilter.of(null, null, null, List.of(Publisher.UMCS), 5,
+                null), null)).hasValueSatisfying(ids -> assertThat(ids).containsExactly(4));
+        assertThat(this.columnarCatalog.findIds(ColumnFilter.of(null, null, null, null, null, 4.5), null))
+                .hasValueSatisfying(ids -> assertThat(ids).containsExactly(1, 4));
+        assertThat(this.columnarCatalog.findIds(ColumnFilter.of(1937, null, null, null, null, 4.5), null))
+                .hasValueSatisfying(ids -> assertThat(ids).isEmpty());
+        assertThat(this.columnarCatalog.findIds(ColumnFilter.of(1937, 1940, null, null, null, null), null))
+                .hasValueSatisfying(ids -> assertThat(ids).isEmpty());
+    }
+
+    @Test
+    public void testFindIds_AuthorDictionary() {
+        this.rebuild();
+
+        assertThat(this.columnarCatalog.findIds(ColumnFilter.of("TOLKIEN", null, null, null, null, null, null),
+                null)).hasValueSatisfying(ids -> assertThat(ids).containsExactly(1, 3, 9000));
+        assertThat(this.columnarCatalog.findIds(ColumnFilter.of("tolkien", null, 1950, null, null, null, null),
+                null)).hasValueSatisfying(ids -> assertThat(ids).containsExactly(9000));
+        assertThat(this.columnarCatalog.findIds(ColumnFilter.of("nobody", null, null, null, null, null, null),
+                null)).hasValueSatisfying(ids -> assertThat(ids).isEmpty());
+    }
+
+    @Test
+    public void testFindIds_Candidates() {
+        this.rebuild();
+
+        assertThat(this.columnarCatalog.findIds(ColumnFilter.of("tolkien", null, null, null, null, null, null),
+                new int[]{2, 3, 7, 9000, 20000})).hasValueSatisfying(ids -> assertThat(ids).containsExactly(3, 9000));
+        assertThat(this.columnarCatalog.findIds(ColumnFilter.of(null, null, null, null, null, null),
+                new int[]{2, 7})).hasValueSatisfying(ids -> assertThat(ids).containsExactly(2));
+    }
+
+    @Test
+    public void testFindIds_Unanswered() {
+        assertThat(this.columnarCatalog.findIds(ColumnFilter.of(null, 1920, 1940, null, null, null), null))
+                .isEqualTo(Optional.empty());
+
+        this.rebuild();
+
+        assertThat(this.columnarCatalog.findIds(ColumnFilter.of(null, null, null, null, null, null), null))
+                .isEqualTo(Optional.empty());
+        // More matches than max-candidates
+        assertThat(this.columnarCatalog.findIds(ColumnFilter.of(null, 1900, null, null, null, null), null))
+                .isEqualTo(Optional.empty());
+    }
+
+    @Test
+    public void testFindIds_ParallelScan() {
+        ColumnarCatalog parallelCatalog = new ColumnarCatalog(this.booksRepository, this.transactionManager, 4, 0);
+        when(this.booksRepository.streamColumnRows()).thenReturn(rows());
+        parallelCatalog.rebuild();
+
+        assertThat(parallelCatalog.findIds(ColumnFilter.of("tolkien", null, null, null, null, null, null), null))
+                .hasValueSatisfying(ids -> assertThat(ids).containsExactly(1, 3, 9000));
+    }
+
+    @Test
+    public void testOnBooksChanged() {
+        this.rebuild();
+
+        this.columnarCatalog.onBooksChanged(new BooksChangedEvent(
+                List.of(new BookDTO(3, "Title", 1937, "Sapkowski", Publisher.UMCS, 1, 2.0, List.of(0, 1, 0, 0, 0),
+                                null, 1L),
+                        new BookDTO(12000, "Title", 1938, "Andrzej Sapkowski", Publisher.UP, 0, 0.0,
+                                List.of(0, 0, 0, 0, 0), null, 0L)),
+                List.of(1, 5000)));
+
+        assertThat(this.columnarCatalog.findIds(ColumnFilter.of("tolkien", null, null, null, null, null, null),
+                null)).hasValueSatisfying(ids -> assertThat(ids).containsExactly(9000));
+        assertThat(this.columnarCatalog.findIds(ColumnFilter.of("sapkowski", null, null, null, null, null, null),
+                null)).hasValueSatisfying(ids -> assertThat(ids).containsExactly(3, 12000));
+        assertThat(this.columnarCatalog.findIds(ColumnFilter.of(null, null, null, null, 2, null), null))
+                .hasValueSatisfying(ids -> assertThat(ids).containsExactly(3));
+    }
+
+    @Test
+    public void testFindIds_UncommittedChanges() {
+        this.rebuild();
+        ColumnFilter filter = ColumnFilter.of(null, 1920, 1940, null, null, null);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            this.columnarCatalog.onBooksChanging(BooksChangedEvent.deleted(1));
+            assertThat(this.columnarCatalog.findIds(filter, null)).isEqualTo(Optional.empty());
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(this.columnarCatalog.findIds(filter, null)).isPresent();
+    }
+
+    private void rebuild() {
+        when(this.booksRepository.streamColumnRows()).thenReturn(rows());
+        this.columnarCatalog.rebuild();
+    }
+
+    private static Stream<BookColumnRowDTO> rows() {
+        return Stream.of(
+                new BookColumnRowDTO(1, Publisher.POLLUB, 1925, "J.R.R. Tolkien", 5.0, 0, 0, 0, 0, 2),
+                new BookColumnRowDTO(2, Publisher.POLLUB, 1922, "Kamil", 0.0, 0, 0, 0, 0, 0),
+                new BookColumnRowDTO(3, Publisher.POLLUB, 1937, "J.R.R. Tolkien", 4.0, 0, 0, 0, 3, 0),
+                new BookColumnRowDTO(4, Publisher.UMCS, 1951, "Kamil", 4.5, 0, 0, 0, 1, 1),
+                new BookColumnRowDTO(5, Publisher.UMCS, 2015, null, 1.0, 1, 0, 0, 0, 0),
+                new BookColumnRowDTO(9000, Publisher.UP, 1954, "Christopher Tolkien", 3.0, 0, 0, 1, 0, 0));
+    }
+}
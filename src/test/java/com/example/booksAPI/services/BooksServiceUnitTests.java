@@ -2,17 +2,25 @@ package com.example.booksAPI.services;
 
 import com.example.booksAPI.dto.*;
 import com.example.booksAPI.entities.Book;
+import com.example.booksAPI.entities.Rating;
+import com.example.booksAPI.enums.BookSort;
 import com.example.booksAPI.enums.Publisher;
+import com.example.booksAPI.events.BooksChangedEvent;
 import com.example.booksAPI.exceptions.BadRequestException;
 import com.example.booksAPI.exceptions.ResourceNotFoundException;
 import com.example.booksAPI.repositories.BooksRepository;
 import com.example.booksAPI.repositories.RatingsRepository;
+import com.example.booksAPI.search.BookSearchIndex;
+import com.example.booksAPI.search.ColumnarCatalog;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.ResponseEntity;
 
 import java.util.ArrayList;
@@ -24,7 +32,10 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,35 +46,120 @@ public class BooksServiceUnitTests {
     @Mock
     RatingsRepository ratingsRepository;
 
+    @Mock
+    BookSearchIndex bookSearchIndex;
+
+    @Mock
+    ColumnarCatalog columnarCatalog;
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     BooksService booksService;
 
     private List<Book> books;
+    private List<BookDTO> bookDTOs;
 
     @BeforeEach
     public void setUp() {
         this.books = Arrays.asList(new Book(1, "Title 1", 2024, "Kamil", Publisher.POLLUB,
                         new ArrayList<>()),
                 new Book(2, "Title 2", 2023, "Kamil", Publisher.POLLUB, new ArrayList<>()));
+        this.books.getFirst().setRating_count(2);
+        this.books.getFirst().setRating_sum(8L);
+        this.books.getFirst().setAverage_rating(4.0);
+        this.books.getFirst().setScore_3_count(1);
+        this.books.getFirst().setScore_5_count(1);
+        this.bookDTOs = Arrays.asList(new BookDTO(1, "Title 1", 2024, "Kamil", Publisher.POLLUB, 2, 4.0,
+                        List.of(0, 0, 1, 0, 1), null, null),
+                new BookDTO(2, "Title 2", 2023, "Kamil", Publisher.POLLUB, 0, 0.0, List.of(0, 0, 0, 0, 0), null, null));
     }
 
     @Test
     public void testGetAllBooks()  {
-        when(this.booksRepository.findAll()).thenReturn(this.books);
-        assertEquals(this.booksService.getAllBooks(), this.books);
+        when(this.booksRepository.findBy(any(Specification.class), any())).thenReturn(this.books);
+        assertEquals(this.booksService.getAllBooks(new PageRequestDTO(), false), new BooksPage(this.bookDTOs, null));
+        verify(this.ratingsRepository, never()).findRatingsByBookIds(anyCollection());
+    }
+
+    @Test
+    public void testGetAllBooks_IncludeRatings()  {
+        when(this.booksRepository.findBy(any(Specification.class), any())).thenReturn(this.books);
+        when(this.ratingsRepository.findRatingsByBookIds(List.of(1, 2)))
+                .thenReturn(List.of(new RatingDTO(1, 1, 5), new RatingDTO(1, 2, 3)));
+        BooksPage result = this.booksService.getAllBooks(new PageRequestDTO(), true);
+        assertEquals(result.getBooks().get(0).getRatings(), List.of(new RatingDTO(1, 1, 5), new RatingDTO(1, 2, 3)));
+        assertEquals(result.getBooks().get(1).getRatings(), List.of());
+    }
+
+    @Test
+    public void testGetAllBooks_NextCursor()  {
+        when(this.booksRepository.findBy(any(Specification.class), any())).thenReturn(this.books);
+        PageRequestDTO page = new PageRequestDTO(1, "TITLE", "ASC", null);
+        BooksPage result = this.booksService.getAllBooks(page, false);
+        assertEquals(result.getBooks().getFirst().getId(), 1);
+        assertEquals(BookCursor.decode(result.getNextCursor(), BookSort.TITLE, Sort.Direction.ASC),
+                new BookCursor(BookSort.TITLE, Sort.Direction.ASC, 1, "Title 1"));
+    }
+
+    @Test
+    public void testGetAllBooks_CursorForDifferentSort() {
+        String cursor = new BookCursor(BookSort.ID, Sort.Direction.ASC, 1, null).encode();
+        PageRequestDTO page = new PageRequestDTO(1, "YEAR", "ASC", cursor);
+        Exception exception = assertThrows(BadRequestException.class, () -> {
+            this.booksService.getAllBooks(page, false);
+        });
+        assertEquals(exception.getMessage(), "Cursor doesn't match requested sort order");
+    }
+
+    @Test
+    public void testGetFilteredBooks_ResolvedBySearchIndex() {
+        when(this.bookSearchIndex.findIds("Title", null)).thenReturn(Optional.of(new int[]{1, 2}));
+        when(this.booksRepository.findBy(any(Specification.class), any())).thenReturn(this.books);
+        assertEquals(this.booksService.getFilteredBooks(new BookFilterDTO("Title", null, null, null, null, null, null, null),
+                        new PageRequestDTO(), false),
+                new BooksPage(this.bookDTOs, null));
+        verify(this.bookSearchIndex).findIds("Title", null);
+    }
+
+    @Test
+    public void testGetFilteredBooks_ResolvedByColumnarCatalog() {
+        when(this.bookSearchIndex.findIds("Title", null)).thenReturn(Optional.of(new int[]{1, 2, 3}));
+        when(this.columnarCatalog.findIds(any(), eq(new int[]{1, 2, 3}))).thenReturn(Optional.of(new int[]{1, 2}));
+        when(this.booksRepository.findBy(any(Specification.class), any())).thenReturn(this.books);
+        assertEquals(this.booksService.getFilteredBooks(new BookFilterDTO("Title", "Kamil", null, "2000", "2024",
+                        List.of("POLLUB"), null, null), new PageRequestDTO(), false),
+                new BooksPage(this.bookDTOs, null));
+        verify(this.bookSearchIndex, never()).findIds("Title", "Kamil");
     }
 
     @Test
     public void testGetFilteredBooks() {
-        when(this.booksRepository.getFilteredBooks(anyString(), anyString(), anyString(), anyString()))
-                .thenReturn(this.books);
-        assertEquals(this.booksService.getFilteredBooks(anyString(), anyString(), anyString(), anyString()), this.books);
+        when(this.booksRepository.findBy(any(Specification.class), any())).thenReturn(this.books);
+        assertEquals(this.booksService.getFilteredBooks(new BookFilterDTO("Title", "Kamil", "2024", "2000", "2024",
+                        List.of("POLLUB", "UP"), "5", "4.5"), new PageRequestDTO(), false),
+                new BooksPage(this.bookDTOs, null));
+    }
+
+    @Test
+    public void testGetFilteredBooks_InvalidYearRange() {
+        BookFilterDTO filter = new BookFilterDTO(null, null, null, "2024", "2000", null, null, null);
+        Exception exception = assertThrows(BadRequestException.class, () -> {
+            this.booksService.getFilteredBooks(filter, new PageRequestDTO(), false);
+        });
+        assertEquals(exception.getMessage(), "yearFrom can't be greater than yearTo");
+        verifyNoInteractions(this.booksRepository);
     }
 
     @Test
     public void testGetBookByID_BookExist() {
         when(this.booksRepository.findById(anyInt())).thenReturn(Optional.ofNullable(this.books.getFirst()));
-        assertEquals(this.booksService.getBookByID(anyInt()), this.books.getFirst());
+        when(this.ratingsRepository.findRatingsByBookIds(List.of(1)))
+                .thenReturn(List.of(new RatingDTO(1, 1, 5), new RatingDTO(1, 2, 3)));
+        BookDTO expected = new BookDTO(1, "Title 1", 2024, "Kamil", Publisher.POLLUB, 2, 4.0,
+                List.of(0, 0, 1, 0, 1), List.of(new RatingDTO(1, 1, 5), new RatingDTO(1, 2, 3)), null);
+        assertEquals(this.booksService.getBookByID(1), expected);
     }
 
     @Test
@@ -83,24 +179,42 @@ public class BooksServiceUnitTests {
         assertEquals(this.booksService.addBook(newBookDTO),
                 ResponseEntity.ok(new SuccessResponse("Book added successfully")));
         verify(this.booksRepository).save(any(Book.class));
+        verify(this.eventPublisher).publishEvent(argThat((BooksChangedEvent event) ->
+                event.getSavedBooks().getFirst().getTitle().equals("Title 2")));
     }
 
     @Test
     public void testRateBook_AllBookFound() {
         RateBookDTO ratings = new RateBookDTO(
-                Arrays.asList(new BookRatingDTO(1, 5), new BookRatingDTO(2, 3)));
+                Arrays.asList(new BookRatingDTO(1, 5), new BookRatingDTO(2, 3), new BookRatingDTO(1, 4)));
+        when(this.booksRepository.findExistingIds(anyCollection())).thenReturn(List.of(1, 2));
+        when(this.booksRepository.getReferenceById(anyInt())).thenAnswer(invocation -> {
+            Book reference = new Book();
+            reference.setId(invocation.getArgument(0));
+            return reference;
+        });
         when(this.booksRepository.findAllById(anyIterable())).thenReturn(this.books);
         when(this.ratingsRepository.saveAll(anyIterable())).thenReturn(anyList());
         assertEquals(this.booksService.rateBook(ratings),
                 ResponseEntity.ok(new SuccessResponse("Ratings added successfully")));
-        verify(this.ratingsRepository).saveAll(anyIterable());
+        verify(this.ratingsRepository).saveAll(argThat((Iterable<Rating> saved) -> {
+            List<Rating> list = new ArrayList<>();
+            saved.forEach(list::add);
+            return list.size() == 3 && list.getFirst().getBook().getId() == 1 && list.get(1).getBook().getId() == 2;
+        }));
+        verify(this.booksRepository, times(3)).getReferenceById(anyInt());
+        verify(this.booksRepository, times(2)).addRatings(any(RatingAggregateDTO.class));
+        verify(this.eventPublisher).publishEvent(argThat((BooksChangedEvent event) ->
+                event.getSavedBooks().size() == 2 && event.getDeletedIds().isEmpty()));
+        verify(this.booksRepository).addRatings(argThat(delta -> delta.getBookId() == 1 && delta.getCount() == 2
+                && delta.getSum() == 9 && Arrays.equals(delta.getHistogram(), new int[]{0, 0, 0, 1, 1})));
     }
 
     @Test
     public void testRateBook_NotFoundBook() {
         RateBookDTO ratings = new RateBookDTO(
                 Arrays.asList(new BookRatingDTO(1, 5), new BookRatingDTO(2, 3)));
-        when(this.booksRepository.findAllById(anyIterable())).thenReturn(new ArrayList<>());
+        when(this.booksRepository.findExistingIds(anyCollection())).thenReturn(List.of(2));
         Exception exception = assertThrows(ResourceNotFoundException.class, () -> {
             this.booksService.rateBook(ratings);
         });
@@ -114,6 +228,7 @@ public class BooksServiceUnitTests {
         UpdateBookDTO updateBookDTO = new UpdateBookDTO("Title 2", "2023", "Kamil");
         assertEquals(this.booksService.updateBook(1, updateBookDTO),
                 ResponseEntity.ok(new SuccessResponse("Book updated successfully")));
+        verify(this.eventPublisher).publishEvent(any(BooksChangedEvent.class));
     }
 
     @Test
@@ -139,9 +254,10 @@ public class BooksServiceUnitTests {
     @Test
     public void testDeleteBook_ValidID() {
         when(this.booksRepository.existsById(anyInt())).thenReturn(true);
-        assertEquals(this.booksService.deleteBook(anyInt()),
+        assertEquals(this.booksService.deleteBook(1),
                 ResponseEntity.ok(new SuccessResponse("Book deleted successfully")));
-        verify(this.booksRepository).deleteById(anyInt());
+        verify(this.booksRepository).deleteById(1);
+        verify(this.eventPublisher).publishEvent(BooksChangedEvent.deleted(1));
     }
 
     @Test
@@ -0,0 +1,104 @@
+package com.example.booksAPI.services;
+
+import com.example.booksAPI.dto.VerifiedToken;
+import com.example.booksAPI.entities.User;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JwtServiceUnitTests {
+    private static final String SECRET_KEY = "HwFMzEDYuSVjJ4Qr4zuw28H0hCOpRREn8StSfkVQSyd5H5JrCqneZi7xuW3Hl9Kb";
+
+    private JwtService jwtService;
+    private UserDetails user;
+
+    @BeforeEach
+    public void setUp() {
+        jwtService = new JwtService(100);
+        user = new org.springframework.security.core.userdetails.User("test@example.com", "password", List.of());
+    }
+
+    @Test
+    public void itShouldVerifyGeneratedToken() {
+        String token = jwtService.generateToken(user);
+
+        VerifiedToken verified = jwtService.verify(token);
+
+        assertEquals("test@example.com", verified.getSubject());
+        assertTrue(verified.getExpiration().isAfter(verified.getIssuedAt()));
+        assertTrue(jwtService.isTokenValid(verified, user));
+        assertFalse(jwtService.isTokenValid(verified, new org.springframework.security.core.userdetails.User("other@example.com", "password", List.of())));
+    }
+
+    @Test
+    public void itShouldIssueUserIdAndTokenIdClaims() {
+        User entity = new User();
+        entity.setId(5);
+        entity.setEmail("test@example.com");
+
+        VerifiedToken verified = jwtService.verify(jwtService.generateToken(entity));
+
+        assertEquals(5, verified.getUserId());
+        assertNotNull(verified.getTokenId());
+        assertEquals(List.of(), verified.getAuthorities());
+    }
+
+    @Test
+    public void itShouldRejectTokenIssuedBeforeUserCutoff() {
+        User entity = new User();
+        entity.setId(5);
+        entity.setEmail("test@example.com");
+        VerifiedToken verified = jwtService.verify(jwtService.generateToken(entity));
+
+        entity.setTokens_valid_after(verified.getIssuedAt().plusSeconds(1));
+
+        assertFalse(jwtService.isTokenValid(verified, entity));
+    }
+
+    @Test
+    public void itShouldReturnSameVerifiedTokenFromCache() {
+        String token = jwtService.generateToken(user);
+
+        assertSame(jwtService.verify(token), jwtService.verify(token));
+    }
+
+    @Test
+    public void itShouldVerifyWithCacheDisabled() {
+        JwtService uncached = new JwtService(0);
+        String token = uncached.generateToken(user);
+
+        assertEquals("test@example.com", uncached.verify(token).getSubject());
+        assertTrue(uncached.isTokenValid(token, user));
+    }
+
+    @Test
+    public void itShouldRejectTamperedToken() {
+        String token = jwtService.generateToken(user);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThrows(SignatureException.class, () -> jwtService.verify(tampered));
+    }
+
+    @Test
+    public void itShouldRejectExpiredToken() {
+        String token = Jwts.builder()
+                .setSubject("test@example.com")
+                .setIssuedAt(new Date(System.currentTimeMillis() - 60_000))
+                .setExpiration(new Date(System.currentTimeMillis() - 1_000))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY)), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThrows(ExpiredJwtException.class, () -> jwtService.verify(token));
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.booksAPI.services;
+
+import com.example.booksAPI.dto.BookRatingDTO;
+import com.example.booksAPI.exceptions.ServiceUnavailableException;
+import com.example.booksAPI.exceptions.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RatingIngestionServiceUnitTests {
+    private final BooksService booksService = mock(BooksService.class);
+    private final List<BookRatingDTO> saved = new CopyOnWriteArrayList<>();
+    private final AtomicInteger flushes = new AtomicInteger();
+    private RatingIngestionService service;
+
+    @AfterEach
+    public void tearDown() {
+        if (this.service.isRunning()) {
+            this.service.stop();
+        }
+    }
+
+    @Test
+    public void itShouldCoalesceRatingsIntoOneBatch() throws Exception {
+        CountDownLatch flushed = new CountDownLatch(1);
+        this.recordFlushes(flushed);
+        this.service = this.start(100, 1000, Duration.ofMillis(200));
+
+        this.service.enqueue(List.of(new BookRatingDTO(1, 5), new BookRatingDTO(2, 3)));
+        this.service.enqueue(List.of(new BookRatingDTO(1, 4)));
+
+        assertTrue(flushed.await(5, TimeUnit.SECONDS));
+        assertEquals(3, this.saved.size());
+        assertEquals(1, this.flushes.get());
+    }
+
+    @Test
+    public void itShouldRefuseRatingsWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(this.booksService.saveQueuedRatings(anyList())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return ids(invocation.getArgument(0));
+        });
+        this.service = this.start(2, 1, Duration.ofMillis(10));
+
+        this.service.enqueue(List.of(new BookRatingDTO(1, 5), new BookRatingDTO(2, 3)));
+
+        assertThrows(TooManyRequestsException.class, () -> this.service.enqueue(List.of(new BookRatingDTO(3, 1))));
+        release.countDown();
+    }
+
+    @Test
+    public void itShouldDrainAcceptedRatingsOnStop() {
+        this.recordFlushes(new CountDownLatch(1));
+        this.service = this.start(100, 1000, Duration.ofMinutes(1));
+        for (int i = 1; i <= 5; i++) {
+            this.service.enqueue(List.of(new BookRatingDTO(i, 5)));
+        }
+
+        this.service.stop();
+
+        assertEquals(5, this.saved.size());
+        assertThrows(ServiceUnavailableException.class,
+                () -> this.service.enqueue(List.of(new BookRatingDTO(1, 1))));
+    }
+
+    @Test
+    public void itShouldRetryFailedBatch() throws Exception {
+        CountDownLatch flushed = new CountDownLatch(1);
+        when(this.booksService.saveQueuedRatings(anyList()))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"))
+                .thenAnswer(invocation -> {
+                    List<BookRatingDTO> batch = invocation.getArgument(0);
+                    this.saved.addAll(batch);
+                    flushed.countDown();
+                    return ids(batch);
+                });
+        this.service = this.start(100, 1000, Duration.ofMillis(50));
+
+        this.service.enqueue(List.of(new BookRatingDTO(1, 5)));
+
+        assertTrue(flushed.await(5, TimeUnit.SECONDS));
+        assertEquals(1, this.saved.size());
+    }
+
+    @Test
+    public void itShouldDeadLetterBatchThatKeepsFailing() throws Exception {
+        CountDownLatch flushed = new CountDownLatch(1);
+        AtomicInteger attempts = new AtomicInteger();
+        when(this.booksService.saveQueuedRatings(anyList())).thenAnswer(invocation -> {
+            List<BookRatingDTO> batch = invocation.getArgument(0);
+            if (batch.getFirst().getId() == 1) {
+                attempts.incrementAndGet();
+                throw new DataIntegrityViolationException("Rejected");
+            }
+            this.saved.addAll(batch);
+            flushed.countDown();
+            return ids(batch);
+        });
+        this.service = this.start(1, 1, Duration.ofMillis(10));
+
+        this.service.enqueue(List.of(new BookRatingDTO(1, 5)));
+        // The only permit comes back once the failing rating is dead-lettered
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (true) {
+            try {
+                this.service.enqueue(List.of(new BookRatingDTO(2, 4)));
+                break;
+            } catch (TooManyRequestsException ex) {
+                assertTrue(System.nanoTime() < deadline);
+                Thread.sleep(10);
+            }
+        }
+
+        assertTrue(flushed.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(new BookRatingDTO(2, 4)), this.saved);
+        assertEquals(3, attempts.get());
+    }
+
+    private void recordFlushes(CountDownLatch flushed) {
+        when(this.booksService.saveQueuedRatings(anyList())).thenAnswer(invocation -> {
+            List<BookRatingDTO> batch = invocation.getArgument(0);
+            this.saved.addAll(batch);
+            this.flushes.incrementAndGet();
+            flushed.countDown();
+            return ids(batch);
+        });
+    }
+
+    private static Set<Integer> ids(List<BookRatingDTO> batch) {
+        return batch.stream().map(BookRatingDTO::getId).collect(Collectors.toSet());
+    }
+
+    private RatingIngestionService start(int capacity, int batchSize, Duration flushInterval) {
+        RatingIngestionService service = new RatingIngestionService(this.booksService, new SimpleMeterRegistry(),
+                capacity, batchSize, flushInterval, Duration.ofSeconds(5), false);
+        service.start();
+        return service;
+    }
+}
@@ -1,11 +1,11 @@
-INSERT INTO books (title, publication_year, author, publisher) VALUES
-('To Kill a Mockingbird', 1960, 'Harper Lee', 'POLLUB'),
-('1984', 1949, 'George Orwell', 'POLLUB'),
-('The Great Gatsby', 1925, 'F. Scott Fitzgerald', 'POLLUB'),
-('Pride and Prejudice', 1813, 'Jane Austen', 'POLLUB'),
-('The Catcher in the Rye', 1951, 'J.D. Salinger', 'POLLUB'),
-('Moby-Dick', 1851, 'Herman Melville', 'POLLUB'),
-('War and Peace', 1869, 'Leo Tolstoy', 'POLLUB'),
-('Ulysses', 1922, 'James Joyce', 'POLLUB'),
-('The Hobbit', 1937, 'J.R.R. Tolkien', 'POLLUB'),
-('Brave New World', 1932, 'Aldous Huxley', 'POLLUB');
\ No newline at end of file
+INSERT INTO books (id, title, publication_year, author, publisher) VALUES
+(1, 'To Kill a Mockingbird', 1960, 'Harper Lee', 'POLLUB'),
+(2, '1984', 1949, 'George Orwell', 'POLLUB'),
+(3, 'The Great Gatsby', 1925, 'F. Scott Fitzgerald', 'POLLUB'),
+(4, 'Pride and Prejudice', 1813, 'Jane Austen', 'POLLUB'),
+(5, 'The Catcher in the Rye', 1951, 'J.D. Salinger', 'POLLUB'),
+(6, 'Moby-Dick', 1851, 'Herman Melville', 'POLLUB'),
+(7, 'War and Peace', 1869, 'Leo Tolstoy', 'POLLUB'),
+(8, 'Ulysses', 1922, 'James Joyce', 'POLLUB'),
+(9, 'The Hobbit', 1937, 'J.R.R. Tolkien', 'POLLUB'),
+(10, 'Brave New World', 1932, 'Aldous Huxley', 'POLLUB');
\ No newline at end of file
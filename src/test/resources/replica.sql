@@ -0,0 +1,24 @@
+CREATE TABLE IF NOT EXISTS books (
+    id INTEGER PRIMARY KEY,
+    title VARCHAR(255),
+    publication_year INTEGER,
+    author VARCHAR(255),
+    publisher VARCHAR(255),
+    average_rating DOUBLE PRECISION DEFAULT 0 NOT NULL,
+    rating_count INTEGER DEFAULT 0 NOT NULL,
+    rating_sum BIGINT DEFAULT 0 NOT NULL,
+    score_1_count INTEGER DEFAULT 0 NOT NULL,
+    score_2_count INTEGER DEFAULT 0 NOT NULL,
+    score_3_count INTEGER DEFAULT 0 NOT NULL,
+    score_4_count INTEGER DEFAULT 0 NOT NULL,
+    score_5_count INTEGER DEFAULT 0 NOT NULL,
+    version BIGINT DEFAULT 0 NOT NULL,
+    updated_at TIMESTAMP(6) WITH TIME ZONE
+);
+CREATE TABLE IF NOT EXISTS ratings (
+    id INTEGER PRIMARY KEY,
+    score INTEGER,
+    book_id INTEGER
+);
+MERGE INTO books (id, title, publication_year, author, publisher) KEY (id) VALUES
+(1, 'To Kill a Mockingbird (replica)', 1960, 'Harper Lee', 'POLLUB');